@@ -0,0 +1,166 @@
+package com.program.analysis.app;
+
+import java.util.concurrent.TimeUnit;
+
+import com.program.analysis.app.representation.AnalysisMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+    Micrometer meters of the uploads and diagram requests, served by the actuator under /actuator/metrics:
+    - analysis.phase: time of each upload phase, tagged with the phase (store, extract, reading, parsing,
+      dependencies, sequences, serialize, register)
+    - analysis.phase.allocated: bytes the analysing thread allocated in a phase, same tags
+    - analysis.parse.file: parse time of a single java file
+    - analysis.parse.files: java files parsed, and analysis.parse.throughput: files per second of an upload
+    - analysis.sequence.nodes: calls expanded for a sequence diagram
+    - analysis.json.bytes: size of the produced JSON, tagged with the diagram (class, sequence)
+    - analysis.symbols.lookups: symbol solver lookups, tagged with the result (resolved, unresolved, timeout)
+ */
+@Component
+public class AnalysisMeters implements AnalysisMetrics {
+    public static final String STORE = "store";
+    public static final String EXTRACT = "extract";
+    public static final String SERIALIZE = "serialize";
+    public static final String REGISTER = "register";
+
+    private MeterRegistry registry;
+    private Timer parseFile;
+    private Counter parsedFiles;
+    private DistributionSummary parseThroughput;
+    private DistributionSummary sequenceNodes;
+    private DistributionSummary classJsonBytes;
+    private DistributionSummary sequenceJsonBytes;
+    private Counter resolvedLookups;
+    private Counter unresolvedLookups;
+    private Counter timedOutLookups;
+
+    // meters that are only kept in memory, for the service when it is not created by Spring
+    public AnalysisMeters() {
+        this(new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public AnalysisMeters(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseFile = Timer.builder("analysis.parse.file")
+                .description("Parse time of a single java file")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.parsedFiles = Counter.builder("analysis.parse.files")
+                .description("Java files parsed")
+                .register(registry);
+        this.parseThroughput = DistributionSummary.builder("analysis.parse.throughput")
+                .description("Java files parsed per second of an upload")
+                .baseUnit("files/s")
+                .register(registry);
+        this.sequenceNodes = DistributionSummary.builder("analysis.sequence.nodes")
+                .description("Calls expanded for a sequence diagram")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.classJsonBytes = jsonBytes("class");
+        this.sequenceJsonBytes = jsonBytes("sequence");
+        this.resolvedLookups = lookups("resolved");
+        this.unresolvedLookups = lookups("unresolved");
+        this.timedOutLookups = lookups("timeout");
+    }
+
+    private DistributionSummary jsonBytes(String diagram) {
+        return DistributionSummary.builder("analysis.json.bytes")
+                .description("Size of the produced diagram JSON")
+                .baseUnit("bytes")
+                .tag("diagram", diagram)
+                .register(registry);
+    }
+
+    private Counter lookups(String result) {
+        return Counter.builder("analysis.symbols.lookups")
+                .description("Symbol solver lookups of the objects calls are made on")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public void phase(String phase, long nanos, long allocatedBytes) {
+        Timer.builder("analysis.phase")
+                .description("Time of an upload phase")
+                .tag("phase", phase)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (allocatedBytes >= 0) {
+            DistributionSummary.builder("analysis.phase.allocated")
+                    .description("Bytes allocated by the analysing thread in an upload phase")
+                    .baseUnit("bytes")
+                    .tag("phase", phase)
+                    .register(registry)
+                    .record(allocatedBytes);
+        }
+    }
+
+    @Override
+    public void fileParsed(long nanos) {
+        parseFile.record(nanos, TimeUnit.NANOSECONDS);
+        parsedFiles.increment();
+    }
+
+    @Override
+    public void filesParsed(int files, long nanos) {
+        if (files > 0 && nanos > 0) {
+            parseThroughput.record(files * 1e9 / nanos);
+        }
+    }
+
+    @Override
+    public void sequenceExpanded(int expandedNodes) {
+        sequenceNodes.record(expandedNodes);
+    }
+
+    @Override
+    public void typesResolved(int resolved, int unresolved, int timedOut) {
+        resolvedLookups.increment(resolved);
+        unresolvedLookups.increment(unresolved);
+        timedOutLookups.increment(timedOut);
+    }
+
+    public void classJsonProduced(int bytes) {
+        classJsonBytes.record(bytes);
+    }
+
+    public void sequenceJsonProduced(int bytes) {
+        sequenceJsonBytes.record(bytes);
+    }
+
+    /*
+        Start timing a phase that runs outside the ProjectCollector, stop() records it
+     */
+    public Phase start(String phase) {
+        return new Phase(phase);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public class Phase {
+        private String phase;
+        private long start;
+        private long allocated;
+
+        private Phase(String phase) {
+            this.phase = phase;
+            this.start = System.nanoTime();
+            this.allocated = AnalysisMetrics.currentThreadAllocatedBytes();
+        }
+
+        public void stop() {
+            long allocatedNow = AnalysisMetrics.currentThreadAllocatedBytes();
+            phase(phase, System.nanoTime() - start, allocated < 0 ? -1 : allocatedNow - allocated);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.program.analysis.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+import com.program.analysis.app.representation.GraphElement;
+
+/*
+    The class diagram JSON of a project, serialized once when the project is registered. The model does not
+    change after that, so every request is served from these bytes, with a strong ETag (SHA-256 of the JSON)
+    for conditional requests and optionally a gzipped copy. The gzipped copy is a representation of its own
+    and has its own ETag, the one of the JSON with a "-gzip" suffix.
+ */
+public class ClassDiagramPayload {
+    private byte[] json;
+    private byte[] gzip;
+    private String etag;
+
+    private ClassDiagramPayload(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    public static ClassDiagramPayload create(Collection<GraphElement> classes, boolean gzip) {
+        try {
+            ByteArrayOutputStream jsonStream = new ByteArrayOutputStream();
+            ClassDiagramWriter.write(classes, jsonStream);
+            byte[] json = jsonStream.toByteArray();
+            return new ClassDiagramPayload(json, gzip ? gzip(json) : null, "\"" + sha256(json) + "\"");
+        } catch (IOException e) {
+            // only in memory streams are involved
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+        A payload read back from a snapshot, gzip may be null
+     */
+    public static ClassDiagramPayload restore(byte[] json, byte[] gzip) {
+        return new ClassDiagramPayload(json, gzip, "\"" + sha256(json) + "\"");
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    // null when the payload was created without gzip
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public String getETag(boolean gzip) {
+        return gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+    }
+
+    /*
+        Whether the gzipped copy is sent to a client with this Accept-Encoding header: gzip (or "*" when gzip
+        is not named) with a q-value above 0
+     */
+    public boolean sendsGzip(String acceptEncoding) {
+        if (gzip == null || acceptEncoding == null) {
+            return false;
+        }
+        Boolean any = null;
+        for (String coding: acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            boolean accepted = quality(parts) > 0;
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                return accepted;
+            } else if (name.equals("*")) {
+                any = accepted;
+            }
+        }
+        return any != null && any;
+    }
+
+    // q of a coding, 1 when not given and 0 when it can not be read
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /*
+        Whether an If-None-Match header matches the JSON, or the gzipped copy with gzip. It may list several
+        (possibly weak) tags or "*".
+     */
+    public boolean matches(String ifNoneMatch, boolean gzip) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = getETag(gzip);
+        for (String tag: ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream gzipStream = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzipStream)) {
+            outputStream.write(json);
+        }
+        return gzipStream.toByteArray();
+    }
+
+    private static String sha256(byte[] json) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b: MessageDigest.getInstance("SHA-256").digest(json)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
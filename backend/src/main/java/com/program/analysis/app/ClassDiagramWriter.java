@@ -0,0 +1,89 @@
+package com.program.analysis.app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.program.analysis.app.representation.Field;
+import com.program.analysis.app.representation.GraphElement;
+import com.program.analysis.app.representation.Method;
+import com.program.analysis.app.representation.StringTable;
+
+/*
+    Writes the class diagram JSON straight from the GraphElements to a stream, without building a JSON tree
+    or a String first. The output has the same shape as DiagramProviderService.getClassDiagramInfo.
+ */
+public class ClassDiagramWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public static void write(Collection<GraphElement> classes, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (GraphElement ge: classes) {
+                writeClass(generator, ge);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static void writeClass(JsonGenerator generator, GraphElement ge) throws IOException {
+        generator.writeStartObject();
+        writeString(generator, "ClassType", ge.getClassType());
+        writeString(generator, "Name", ge.getClassName());
+        writeStrings(generator, "TypeParameters", ge.getTypeParameters());
+        StringTable strings = ge.getStrings();
+
+        generator.writeArrayFieldStart("Fields");
+        for (Field f: ge.getFields()) {
+            generator.writeStartObject();
+            writeString(generator, "FieldName", f.getName(strings));
+            writeString(generator, "Type", f.getType(strings));
+            writeString(generator, "Access", f.getAccess(strings));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("Methods");
+        for (Method m: ge.getListOfMethods()) {
+            generator.writeStartObject();
+            writeString(generator, "FuncName", m.getName(strings));
+            generator.writeArrayFieldStart("Param");
+            for (int i = 0; i < m.getParamCount(); i++) {
+                generator.writeString(m.getParamType(i, strings));
+            }
+            generator.writeEndArray();
+            writeString(generator, "Access", m.getAccess(strings));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeObjectFieldStart("Relationship");
+        writeStrings(generator, "Inheritance", ge.getInh());
+        writeStrings(generator, "Implementation", ge.getImp());
+        writeStrings(generator, "Dependency", ge.getDep());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    // like JSONObject.put, a null value leaves the key out
+    private static void writeString(JsonGenerator generator, String key, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(key, value);
+        }
+    }
+
+    private static void writeStrings(JsonGenerator generator, String key, Collection<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        generator.writeArrayFieldStart(key);
+        for (String value: values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+}
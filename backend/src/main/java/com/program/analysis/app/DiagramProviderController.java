@@ -2,12 +2,18 @@ package com.program.analysis.app;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.program.analysis.app.representation.ProjectParseException;
+import com.program.analysis.app.representation.SequenceOptions;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,9 +22,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.json.JSONArray;
 
@@ -26,6 +34,9 @@ import org.json.JSONArray;
 @RestController
 public class DiagramProviderController {
 
+	private static final long JOB_EVENTS_TIMEOUT = 30 * 60 * 1000L;
+	private static final long JOB_EVENTS_INTERVAL = 200L;
+
 	@Autowired
 	private DiagramProviderService diagramProviderService;
 
@@ -34,35 +45,169 @@ public class DiagramProviderController {
  		return ResponseEntity.status(HttpStatus.OK).body("OK");
  	}
 
+	/*
+		baseProjectId names an earlier upload of the same project, only the files that changed since are parsed.
+		The analysis runs in the background: the answer is 202 with the ID of the job (see /analysis/jobs), or
+		503 when too many uploads are waiting. With async uploads turned off it is 200 with the project ID.
+	 */
 	@PutMapping("/analysis/upload")
-	public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
-
+	public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file,
+			@RequestParam(value = "baseProjectId", required = false) String baseProjectId) {
+		if (diagramProviderService.isAsyncUpload()) {
+			return submitUpload(file, baseProjectId);
+		}
+		String projectId;
 		try {
-			diagramProviderService.upload(file);
+			projectId = diagramProviderService.upload(file, baseProjectId);
 		} catch (IOException e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File exception:" + e.getLocalizedMessage());
 		} catch (ProjectParseException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getLocalizedMessage());
 		}
 
-		return ResponseEntity.status(HttpStatus.OK).body("Upload successful");
+		return ResponseEntity.status(HttpStatus.OK).body(projectId);
 	}
 
-	@GetMapping("/analysis/class/info")
-	public ResponseEntity<String> getClassInfos() {
-		JSONArray classInfos = diagramProviderService.getClassDiagramInfo();
+	private ResponseEntity<String> submitUpload(MultipartFile file, String baseProjectId) {
+		UploadJob job;
+		try {
+			job = diagramProviderService.submitUpload(file, baseProjectId);
+		} catch (IOException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File exception:" + e.getLocalizedMessage());
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+					.body("Too many uploads are being analysed, try again later");
+		}
+		URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/analysis/jobs/{jobId}")
+				.buildAndExpand(job.getJobId()).toUri();
+		return ResponseEntity.status(HttpStatus.ACCEPTED).location(location).body(job.getJobId());
+	}
 
-		return new ResponseEntity<String>(classInfos.toString(), HttpStatus.OK);
+	/*
+		Status of an upload job: status, phase, filesParsed of filesTotal, and projectId or error once it finished
+	 */
+	@GetMapping("/analysis/jobs/{jobId}")
+	public ResponseEntity<String> getUploadJob(@PathVariable("jobId") String jobId) {
+		try {
+			UploadJob job = diagramProviderService.getUploadJob(jobId);
+			return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(job.toJSON().toString());
+		} catch (UploadJobNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		}
 	}
 
-	@GetMapping("/analysis/class/{name}/sequence/{method}")
-	public ResponseEntity<String> getSequenceInfos(@PathVariable("name") String className, @PathVariable("method") String methodName) {
-		JSONArray sequenceInfos = diagramProviderService.getSeqDiagramInfo(className, methodName);
-		
-		if (sequenceInfos == null) {
-			return new ResponseEntity<String>("", HttpStatus.OK);
+	// the same status as a Server-Sent Events stream that ends when the job finishes
+	@GetMapping(value = "/analysis/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> getUploadJobEvents(@PathVariable("jobId") String jobId) {
+		try {
+			UploadJob job = diagramProviderService.getUploadJob(jobId);
+			return ResponseEntity.ok(new UploadJobEventStream(job, JOB_EVENTS_TIMEOUT, JOB_EVENTS_INTERVAL).open());
+		} catch (UploadJobNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		}
+	}
+
+	/*
+		The class diagram is serialized once per upload. Clients revalidate with If-None-Match and get a 304
+		while the project is unchanged, the gzipped copy is sent with its own ETag to clients that accept it.
+	 */
+	@GetMapping("/analysis/project/{projectId}/class/info")
+	public ResponseEntity<byte[]> getClassInfos(@PathVariable("projectId") String projectId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		ClassDiagramPayload classInfos;
+		try {
+			classInfos = diagramProviderService.getClassDiagramPayload(projectId);
+		} catch (ProjectNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN)
+					.body(e.getLocalizedMessage().getBytes(StandardCharsets.UTF_8));
+		}
+
+		CacheControl cacheControl = CacheControl.noCache();
+		boolean gzip = classInfos.sendsGzip(acceptEncoding);
+		if (classInfos.matches(ifNoneMatch, gzip)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(classInfos.getETag(gzip)).cacheControl(cacheControl)
+					.varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+		}
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON)
+				.eTag(classInfos.getETag(gzip)).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(classInfos.getGzip());
+		}
+		return response.body(classInfos.getJson());
+	}
+
+	@GetMapping("/analysis/project/{projectId}/class/{name}/sequence/{method}")
+	public ResponseEntity<String> getSequenceInfos(@PathVariable("projectId") String projectId,
+			@PathVariable("name") String className, @PathVariable("method") String methodName,
+			@RequestParam(value = "maxDepth", defaultValue = "" + SequenceOptions.DEFAULT_MAX_DEPTH) int maxDepth,
+			@RequestParam(value = "maxNodes", defaultValue = "" + SequenceOptions.DEFAULT_MAX_NODES) int maxNodes) {
+		String sequenceInfos;
+		try {
+			sequenceInfos = diagramProviderService.getSeqDiagramJson(projectId, className, methodName, new SequenceOptions(maxDepth, maxNodes));
+		} catch (ProjectNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
 		}
 
-		return new ResponseEntity<String>(sequenceInfos.toString(), HttpStatus.OK);
+		return new ResponseEntity<String>(sequenceInfos, HttpStatus.OK);
+	}
+
+	/*
+		Call graph statistics of the project, top is the number of methods listed by fan-in and fan-out
+	 */
+	@GetMapping("/analysis/project/{projectId}/calls")
+	public ResponseEntity<String> getCallGraphStats(@PathVariable("projectId") String projectId,
+			@RequestParam(value = "top", defaultValue = "10") int top) {
+		try {
+			return new ResponseEntity<String>(diagramProviderService.getCallGraphStats(projectId, top).toString(), HttpStatus.OK);
+		} catch (ProjectNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		}
+	}
+
+	/*
+		The methods reachable from the method with their call depth, with callers=true the methods it is
+		reachable from
+	 */
+	@GetMapping("/analysis/project/{projectId}/class/{name}/calls/{method}")
+	public ResponseEntity<String> getReachableMethods(@PathVariable("projectId") String projectId,
+			@PathVariable("name") String className, @PathVariable("method") String methodName,
+			@RequestParam(value = "maxDepth", defaultValue = "" + SequenceOptions.DEFAULT_MAX_DEPTH) int maxDepth,
+			@RequestParam(value = "callers", defaultValue = "false") boolean callers) {
+		try {
+			JSONArray methods = diagramProviderService.getReachableMethods(projectId, className, methodName, maxDepth, callers);
+			return new ResponseEntity<String>(methods.toString(), HttpStatus.OK);
+		} catch (ProjectNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getLocalizedMessage());
+		}
+	}
+
+	@GetMapping("/analysis/cache/sequence")
+	public ResponseEntity<String> getSequenceCacheStats() {
+		return new ResponseEntity<String>(diagramProviderService.getSequenceCacheStats().toString(), HttpStatus.OK);
+	}
+
+	// Endpoints without a project ID answer for the most recent upload
+	@GetMapping("/analysis/class/info")
+	public ResponseEntity<byte[]> getLatestClassInfos(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		String projectId = diagramProviderService.getLatestProjectId();
+		if (projectId == null) {
+			return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON)
+					.body(new JSONArray().toString().getBytes(StandardCharsets.UTF_8));
+		}
+		return getClassInfos(projectId, ifNoneMatch, acceptEncoding);
+	}
+
+	@GetMapping("/analysis/class/{name}/sequence/{method}")
+	public ResponseEntity<String> getLatestSequenceInfos(@PathVariable("name") String className, @PathVariable("method") String methodName,
+			@RequestParam(value = "maxDepth", defaultValue = "" + SequenceOptions.DEFAULT_MAX_DEPTH) int maxDepth,
+			@RequestParam(value = "maxNodes", defaultValue = "" + SequenceOptions.DEFAULT_MAX_NODES) int maxNodes) {
+		String projectId = diagramProviderService.getLatestProjectId();
+		if (projectId == null) {
+			return new ResponseEntity<String>(new JSONArray().toString(), HttpStatus.OK);
+		}
+		return getSequenceInfos(projectId, className, methodName, maxDepth, maxNodes);
 	}
 }
@@ -2,15 +2,27 @@ package com.program.analysis.app;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
-import com.program.analysis.app.representation.AnalysisConstants;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.program.analysis.app.representation.AnalysisProgress;
+import com.program.analysis.app.representation.CallGraph;
 import com.program.analysis.app.representation.Field;
 import com.program.analysis.app.representation.GraphElement;
 import com.program.analysis.app.representation.Method;
 import com.program.analysis.app.representation.ProjectCollector;
 import com.program.analysis.app.representation.ProjectParseException;
+import com.program.analysis.app.representation.SequenceOptions;
+import com.program.analysis.app.representation.SourceFilter;
+import com.program.analysis.app.representation.StringTable;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.json.JSONArray;
@@ -18,22 +30,248 @@ import org.json.JSONObject;
 
 @Service
 public class DiagramProviderService {
-    private ProjectCollector projectCollector = ProjectCollector.getInstance();
     private static ZipFileStorageManager zipFileStorageManager = new ZipFileStorageManager().initDefaultFolders();
+    private int parseParallelism = 1;
+    private boolean streamingUpload = true;
+    private boolean memberDependencies = false;
+    private boolean lazyMethodBodies = false;
+    private boolean symbolResolution = false;
+    private long symbolResolutionTimeout = 5000;
+    private List<String> sourceIncludes = Collections.emptyList();
+    private List<String> sourceExcludes = Collections.emptyList();
+    private long maxSourceSize = 0;
+    private boolean skipTypelessSources = false;
+    private SourceFilter sourceFilter = SourceFilter.defaults();
+    private boolean gzipClassDiagram = true;
+    private boolean asyncUpload = true;
 
-    public void upload(MultipartFile multipartFile) throws IOException, ProjectParseException {
-        // Store the multipart file to zip folder then unzip it
-        zipFileStorageManager.saveFile(multipartFile, true);
-        File[] files = zipFileStorageManager.unzipFile(multipartFile.getOriginalFilename(), true);
+    private ProjectRegistry projectRegistry;
+    private SequenceDiagramCache sequenceDiagramCache;
+    private UploadJobManager uploadJobManager;
+    private AnalysisMeters analysisMeters;
 
-        projectCollector.parseFiles(files);
-	}
+    public DiagramProviderService(ProjectRegistry projectRegistry) {
+        this(projectRegistry, new SequenceDiagramCache(SequenceDiagramCache.DEFAULT_MAX_WEIGHT), new UploadJobManager(1, 16, 64),
+                new AnalysisMeters());
+    }
+
+    @Autowired
+    public DiagramProviderService(ProjectRegistry projectRegistry, SequenceDiagramCache sequenceDiagramCache,
+            UploadJobManager uploadJobManager, AnalysisMeters analysisMeters) {
+        this.projectRegistry = projectRegistry;
+        this.sequenceDiagramCache = sequenceDiagramCache;
+        this.uploadJobManager = uploadJobManager;
+        this.analysisMeters = analysisMeters;
+    }
+
+    @Value("${analysis.parse.parallelism:1}")
+    public void setParseParallelism(int parseParallelism) {
+        this.parseParallelism = parseParallelism;
+    }
+
+    @Value("${analysis.dependencies.members:false}")
+    public void setMemberDependencies(boolean memberDependencies) {
+        this.memberDependencies = memberDependencies;
+    }
+
+    @Value("${analysis.methods.lazy:false}")
+    public void setLazyMethodBodies(boolean lazyMethodBodies) {
+        this.lazyMethodBodies = lazyMethodBodies;
+    }
+
+    @Value("${analysis.symbols.resolve:false}")
+    public void setSymbolResolution(boolean symbolResolution) {
+        this.symbolResolution = symbolResolution;
+    }
+
+    @Value("${analysis.symbols.timeout-ms:5000}")
+    public void setSymbolResolutionTimeout(long symbolResolutionTimeout) {
+        this.symbolResolutionTimeout = symbolResolutionTimeout;
+    }
+
+    @Value("${analysis.sources.include:}")
+    public void setSourceIncludes(List<String> includes) {
+        this.sourceIncludes = includes;
+        updateSourceFilter();
+    }
+
+    @Value("${analysis.sources.exclude:}")
+    public void setSourceExcludes(List<String> excludes) {
+        this.sourceExcludes = excludes;
+        updateSourceFilter();
+    }
+
+    @Value("${analysis.sources.max-size:0}")
+    public void setMaxSourceSize(long maxSourceSize) {
+        this.maxSourceSize = maxSourceSize;
+        updateSourceFilter();
+    }
+
+    @Value("${analysis.sources.skip-typeless:false}")
+    public void setSkipTypelessSources(boolean skipTypelessSources) {
+        this.skipTypelessSources = skipTypelessSources;
+        updateSourceFilter();
+    }
+
+    private void updateSourceFilter() {
+        this.sourceFilter = new SourceFilter(sourceIncludes, sourceExcludes, maxSourceSize, skipTypelessSources);
+    }
+
+    @Value("${analysis.class-info.gzip:true}")
+    public void setGzipClassDiagram(boolean gzipClassDiagram) {
+        this.gzipClassDiagram = gzipClassDiagram;
+    }
+
+    @Value("${analysis.unzip.parallelism:1}")
+    public void setUnzipParallelism(int unzipParallelism) {
+        zipFileStorageManager.setExtractParallelism(unzipParallelism);
+    }
+
+    @Value("${analysis.upload.async:true}")
+    public void setAsyncUpload(boolean asyncUpload) {
+        this.asyncUpload = asyncUpload;
+    }
+
+    @Value("${analysis.upload.streaming:true}")
+    public void setStreamingUpload(boolean streamingUpload) {
+        this.streamingUpload = streamingUpload;
+    }
+
+    /*
+        Analyse the uploaded project and return its project ID. Every upload gets its own folders and its own
+        ProjectCollector, so concurrent uploads never touch another project's model. In streaming mode the java
+        files are read straight from the upload, otherwise the zip is stored and extracted to disk first.
+     */
+    public String upload(MultipartFile multipartFile) throws IOException, ProjectParseException {
+        return upload(multipartFile, null);
+    }
+
+    /*
+        Upload a new version of the project baseProjectId, only the changed files are parsed again. The new
+        version gets its own project ID, when the base project is not registered (anymore) the whole project
+        is analysed.
+     */
+    public String upload(MultipartFile multipartFile, String baseProjectId) throws IOException, ProjectParseException {
+        String projectId = projectRegistry.newProjectId();
+        ProjectCollector projectCollector = newProjectCollector(baseProjectId, null);
+        if (streamingUpload) {
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                projectCollector.parseZipStream(inputStream);
+            }
+            registerProject(projectId, projectCollector);
+            return projectId;
+        }
+
+        ZipFileStorageManager storageManager = zipFileStorageManager.forProject(projectId);
+        try {
+            // Store the multipart file to zip folder then unzip it
+            AnalysisMeters.Phase store = analysisMeters.start(AnalysisMeters.STORE);
+            storageManager.saveFile(multipartFile, true);
+            store.stop();
+            projectCollector.parseFiles(extract(storageManager, multipartFile.getOriginalFilename()));
+            registerProject(projectId, projectCollector);
+        } finally {
+            storageManager.deleteSourceFolder();
+            storageManager.deleteDestinationFolder();
+        }
+        return projectId;
+    }
+
+    /*
+        Analyse the upload in the background and return its job right away. The zip is stored during the
+        request since the multipart file is gone afterwards, the job reads it from there (or extracts it when
+        streaming is turned off). Throws RejectedExecutionException when too many uploads are waiting.
+     */
+    public UploadJob submitUpload(MultipartFile multipartFile, String baseProjectId) throws IOException {
+        String projectId = projectRegistry.newProjectId();
+        String fileName = multipartFile.getOriginalFilename();
+        ZipFileStorageManager storageManager = zipFileStorageManager.forProject(projectId);
+        try {
+            AnalysisMeters.Phase store = analysisMeters.start(AnalysisMeters.STORE);
+            storageManager.saveFile(multipartFile, true);
+            store.stop();
+            return uploadJobManager.submit(job -> {
+                try {
+                    ProjectCollector projectCollector = newProjectCollector(baseProjectId, job);
+                    if (streamingUpload) {
+                        try (InputStream inputStream = storageManager.openFile(fileName)) {
+                            projectCollector.parseZipStream(inputStream);
+                        }
+                    } else {
+                        job.phase(UploadJob.EXTRACTING);
+                        projectCollector.parseFiles(extract(storageManager, fileName));
+                    }
+                    job.phase(UploadJob.REGISTERING);
+                    registerProject(projectId, projectCollector);
+                    return projectId;
+                } finally {
+                    storageManager.deleteSourceFolder();
+                    storageManager.deleteDestinationFolder();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            storageManager.deleteSourceFolder();
+            storageManager.deleteDestinationFolder();
+            throw e;
+        }
+    }
+
+    public UploadJob getUploadJob(String jobId) throws UploadJobNotFoundException {
+        return uploadJobManager.get(jobId);
+    }
+
+    public boolean isAsyncUpload() {
+        return asyncUpload;
+    }
+
+    private File[] extract(ZipFileStorageManager storageManager, String fileName) throws IOException {
+        AnalysisMeters.Phase extract = analysisMeters.start(AnalysisMeters.EXTRACT);
+        File[] files = storageManager.unzipFile(fileName, true);
+        extract.stop();
+        return files;
+    }
+
+    private ProjectCollector newProjectCollector(String baseProjectId, AnalysisProgress progress) {
+        ProjectCollector projectCollector = new ProjectCollector();
+        projectCollector.setParseParallelism(parseParallelism);
+        projectCollector.setMemberDependencies(memberDependencies);
+        projectCollector.setLazyMethodBodies(lazyMethodBodies);
+        projectCollector.setSymbolResolution(symbolResolution);
+        projectCollector.setSymbolResolutionTimeout(symbolResolutionTimeout);
+        projectCollector.setSourceFilter(sourceFilter);
+        projectCollector.setProgress(progress);
+        projectCollector.setMetrics(analysisMeters);
+        if (baseProjectId != null) {
+            try {
+                projectCollector.setBaseProject(projectRegistry.get(baseProjectId));
+            } catch (ProjectNotFoundException e) {
+                // analysed from scratch
+            }
+        }
+        return projectCollector;
+    }
+
+    // the class diagram only changes on upload, so it is serialized here once
+    private void registerProject(String projectId, ProjectCollector projectCollector) {
+        AnalysisMeters.Phase serialize = analysisMeters.start(AnalysisMeters.SERIALIZE);
+        ClassDiagramPayload classDiagram = ClassDiagramPayload.create(projectCollector.getClasses(), gzipClassDiagram);
+        serialize.stop();
+        analysisMeters.classJsonProduced(classDiagram.getJson().length);
+        AnalysisMeters.Phase register = analysisMeters.start(AnalysisMeters.REGISTER);
+        projectRegistry.register(projectId, projectCollector, classDiagram);
+        register.stop();
+    }
+
+    // ID of the most recent upload, used by the endpoints that do not name a project
+    public String getLatestProjectId() {
+        return projectRegistry.getLatestProjectId();
+    }
 
     /*
         This method generates JSON for class diagram generation in the front-end
      */
-	public JSONArray getClassDiagramInfo() {
-        Set<GraphElement> classes = projectCollector.getClasses();
+	public JSONArray getClassDiagramInfo(String projectId) throws ProjectNotFoundException {
+        Set<GraphElement> classes = projectRegistry.get(projectId).getClasses();
         JSONArray jarray = new JSONArray();
         for (GraphElement ge: classes) {
             jarray.put(initClassJSON(ge));
@@ -41,41 +279,47 @@ public class DiagramProviderService {
 		return jarray;
     }
 
+    /*
+        The class diagram JSON serialized when the project was uploaded, the same JSON as getClassDiagramInfo
+     */
+    public ClassDiagramPayload getClassDiagramPayload(String projectId) throws ProjectNotFoundException {
+        return projectRegistry.getClassDiagram(projectId);
+    }
+
     private JSONObject initClassJSON(GraphElement ge) {
         JSONObject json = new JSONObject();
         json.put("ClassType", ge.getClassType());
         json.put("Name", ge.getClassName());
         json.put("TypeParameters", ge.getTypeParameters());
-        json.put("Fields", classFieldsHelper(ge.getFields()));
-        json.put("Methods", classMethodHelper(ge.getListOfMethods()));
+        json.put("Fields", classFieldsHelper(ge.getFields(), ge.getStrings()));
+        json.put("Methods", classMethodHelper(ge.getListOfMethods(), ge.getStrings()));
         json.put("Relationship", classDepHelper(ge.getInh(), ge.getImp(), ge.getDep()));
         return json;
     }
 
-    private JSONArray classFieldsHelper(Set<Field> fields) {
+    private JSONArray classFieldsHelper(Set<Field> fields, StringTable strings) {
         JSONArray jarray = new JSONArray();
         for (Field f: fields) {
             JSONObject j = new JSONObject();
-            j.put("FieldName", f.getName());
-            j.put("Type", f.getType());
-            j.put("Access", f.getAccess());
+            j.put("FieldName", f.getName(strings));
+            j.put("Type", f.getType(strings));
+            j.put("Access", f.getAccess(strings));
             jarray.put(j);
         }
         return jarray;
     }
 
-    private JSONArray classMethodHelper(Set<Method> methods) {
+    private JSONArray classMethodHelper(Set<Method> methods, StringTable strings) {
         JSONArray jarray = new JSONArray();
         for (Method m: methods) {
             JSONObject j = new JSONObject();
-            j.put("FuncName", m.getName());
+            j.put("FuncName", m.getName(strings));
             JSONArray ja = new JSONArray();
-            for (String s: m.getParam()) {
-                String[] temp = s.split(AnalysisConstants.PARAM_SEPARATOR);
-                ja.put(temp[0]);
+            for (int i = 0; i < m.getParamCount(); i++) {
+                ja.put(m.getParamType(i, strings));
             }
             j.put("Param", ja);
-            j.put("Access", m.getAccess());
+            j.put("Access", m.getAccess(strings));
             jarray.put(j);
         }
         return jarray;
@@ -101,7 +345,105 @@ public class DiagramProviderService {
         return returnObj;
     }
 
-	public JSONArray getSeqDiagramInfo(String className, String methodName) {
-		return projectCollector.getSeqDiagramInfo(className, methodName);
+	public JSONArray getSeqDiagramInfo(String projectId, String className, String methodName, SequenceOptions options) throws ProjectNotFoundException {
+		return projectRegistry.get(projectId).getSeqDiagramInfo(className, methodName, options, analysisMeters);
 	}
+
+    /*
+        The sequence diagram JSON through the cache. The project is looked up first so a dropped project is
+        not served from the cache.
+     */
+    public String getSeqDiagramJson(String projectId, String className, String methodName, SequenceOptions options) throws ProjectNotFoundException {
+        ProjectCollector project = projectRegistry.get(projectId);
+        return sequenceDiagramCache.get(projectId, className, methodName, options, () -> {
+            String json = project.getSeqDiagramInfo(className, methodName, options, analysisMeters).toString();
+            analysisMeters.sequenceJsonProduced(json.getBytes(StandardCharsets.UTF_8).length);
+            return json;
+        });
+    }
+
+    /*
+        Size of the project's call graph, the number of call sites inside loops, alternatives and optional
+        blocks, and the top methods by fan-in (distinct callers) and fan-out (distinct callees)
+     */
+    public JSONObject getCallGraphStats(String projectId, int top) throws ProjectNotFoundException {
+        CallGraph graph = projectRegistry.get(projectId).getCallGraph();
+        JSONObject json = new JSONObject();
+        json.put("methods", graph.size());
+        json.put("callSites", graph.getCallSiteCount());
+        int[] contexts = new int[4];
+        for (int i = 0; i < graph.getCallSiteCount(); i++) {
+            contexts[graph.getContext(i)]++;
+        }
+        JSONObject byContext = new JSONObject();
+        for (int context = 0; context < contexts.length; context++) {
+            byContext.put(CallGraph.getContextName(context), contexts[context]);
+        }
+        json.put("callSitesByContext", byContext);
+        int[] fanIn = new int[graph.size()];
+        int[] fanOut = new int[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            fanIn[id] = graph.getFanIn(id);
+            fanOut[id] = graph.getFanOut(id);
+        }
+        json.put("fanIn", topMethods(graph, fanIn, top));
+        json.put("fanOut", topMethods(graph, fanOut, top));
+        return json;
+    }
+
+    private JSONArray topMethods(CallGraph graph, int[] counts, int top) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a]) : graph.getKey(a).compareTo(graph.getKey(b)));
+        JSONArray jarray = new JSONArray();
+        for (int id: ids.subList(0, Math.min(Math.max(0, top), ids.size()))) {
+            JSONObject j = new JSONObject();
+            j.put("class", graph.getClassName(id));
+            j.put("method", graph.getMethodName(id));
+            j.put("count", counts[id]);
+            jarray.put(j);
+        }
+        return jarray;
+    }
+
+    /*
+        The methods the given method calls within maxDepth calls, directly or not, or with callers the
+        methods that call it. Empty when the project has no such method.
+     */
+    public JSONArray getReachableMethods(String projectId, String className, String methodName, int maxDepth,
+            boolean callers) throws ProjectNotFoundException {
+        CallGraph graph = projectRegistry.get(projectId).getCallGraph();
+        JSONArray jarray = new JSONArray();
+        int id = graph.getId(className, methodName);
+        if (id < 0) {
+            return jarray;
+        }
+        int[] depths = new int[graph.size()];
+        for (int reached: graph.reachable(id, maxDepth, callers, depths)) {
+            JSONObject j = new JSONObject();
+            j.put("class", graph.getClassName(reached));
+            j.put("method", graph.getMethodName(reached));
+            j.put("depth", depths[jarray.length()]);
+            jarray.put(j);
+        }
+        return jarray;
+    }
+
+    public JSONObject getSequenceCacheStats() {
+        CacheStats stats = sequenceDiagramCache.getStats();
+        JSONObject json = new JSONObject();
+        json.put("size", sequenceDiagramCache.getEstimatedSize());
+        json.put("hits", stats.hitCount());
+        json.put("misses", stats.missCount());
+        json.put("hitRate", stats.hitRate());
+        json.put("loads", stats.loadCount());
+        json.put("loadFailures", stats.loadFailureCount());
+        json.put("evictions", stats.evictionCount());
+        json.put("evictedWeight", stats.evictionWeight());
+        return json;
+    }
 }
\ No newline at end of file
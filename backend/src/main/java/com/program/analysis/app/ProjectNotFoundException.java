@@ -0,0 +1,10 @@
+package com.program.analysis.app;
+
+public class ProjectNotFoundException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public ProjectNotFoundException(String projectId) {
+        super("No analysed project with ID " + projectId);
+	}
+}
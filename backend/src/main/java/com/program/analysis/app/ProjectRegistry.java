@@ -0,0 +1,146 @@
+package com.program.analysis.app;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.program.analysis.app.representation.ProjectCollector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Holds the analysed projects by project ID. A project is registered once its analysis is finished and is
+    never modified afterwards, so requests can read it without locking. When more than maxProjects are
+    registered the oldest uploads are dropped.
+    With a snapshot store every registered project is also written to disk. A project that is not in memory
+    (dropped, or uploaded before a restart) is read back from its snapshot the first time it is requested.
+ */
+@Component
+public class ProjectRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectRegistry.class);
+
+    private int maxProjects;
+    private ConcurrentHashMap<String, ProjectCollector> projects = new ConcurrentHashMap<String, ProjectCollector>();
+    private ConcurrentHashMap<String, ClassDiagramPayload> classDiagrams = new ConcurrentHashMap<String, ClassDiagramPayload>();
+    // every project in memory once, oldest first; only changed under the registry's lock
+    private Deque<String> uploadOrder = new ArrayDeque<String>();
+    private volatile String latestProjectId;
+    private ProjectSnapshotStore snapshotStore;
+
+    public ProjectRegistry(int maxProjects) {
+        this(maxProjects, null);
+    }
+
+    @Autowired
+    public ProjectRegistry(@Value("${analysis.projects.max:16}") int maxProjects, ProjectSnapshotStore snapshotStore) {
+        this.maxProjects = Math.max(1, maxProjects);
+        this.snapshotStore = snapshotStore != null && snapshotStore.isEnabled() ? snapshotStore : null;
+        if (this.snapshotStore != null) {
+            // nothing is read yet, only the newest stored project becomes the latest one
+            List<String> storedIds = this.snapshotStore.getProjectIds();
+            if (!storedIds.isEmpty()) {
+                latestProjectId = storedIds.get(storedIds.size() - 1);
+            }
+        }
+    }
+
+    public String newProjectId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public void register(String projectId, ProjectCollector project) {
+        register(projectId, project, ClassDiagramPayload.create(project.getClasses(), false));
+    }
+
+    public void register(String projectId, ProjectCollector project, ClassDiagramPayload classDiagram) {
+        put(projectId, project, classDiagram);
+        latestProjectId = projectId;
+        if (snapshotStore != null) {
+            try {
+                snapshotStore.save(projectId, project, classDiagram);
+            } catch (IOException e) {
+                // the project is still served from memory, it just does not survive a restart
+                LOGGER.warn("Failed to write the snapshot of project " + projectId, e);
+            }
+        }
+    }
+
+    /*
+        Synchronized like loadSnapshot, so concurrent uploads evict exactly the oldest projects and the payloads
+        are dropped together with their projects. Reads do not lock.
+     */
+    private synchronized void put(String projectId, ProjectCollector project, ClassDiagramPayload classDiagram) {
+        // the payload goes in first so a project is never visible without it
+        classDiagrams.put(projectId, classDiagram);
+        projects.put(projectId, project);
+        // a project registered again moves to the end instead of being queued twice
+        uploadOrder.remove(projectId);
+        uploadOrder.add(projectId);
+        while (projects.size() > maxProjects) {
+            String oldest = uploadOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            projects.remove(oldest);
+            classDiagrams.remove(oldest);
+        }
+    }
+
+    public ProjectCollector get(String projectId) throws ProjectNotFoundException {
+        ProjectCollector project = projectId == null ? null : projects.get(projectId);
+        if (project == null && loadSnapshot(projectId)) {
+            project = projects.get(projectId);
+        }
+        if (project == null) {
+            throw new ProjectNotFoundException(projectId);
+        }
+        return project;
+    }
+
+    public ClassDiagramPayload getClassDiagram(String projectId) throws ProjectNotFoundException {
+        ClassDiagramPayload classDiagram = projectId == null ? null : classDiagrams.get(projectId);
+        if (classDiagram == null && loadSnapshot(projectId)) {
+            classDiagram = classDiagrams.get(projectId);
+        }
+        if (classDiagram == null) {
+            throw new ProjectNotFoundException(projectId);
+        }
+        return classDiagram;
+    }
+
+    /*
+        Read the project back from its snapshot, false if there is none. Synchronized so concurrent requests
+        for the same project read the file once.
+     */
+    private synchronized boolean loadSnapshot(String projectId) {
+        if (projectId == null || snapshotStore == null) {
+            return false;
+        }
+        if (projects.containsKey(projectId)) {
+            return true;
+        }
+        try {
+            ProjectSnapshotStore.Snapshot snapshot = snapshotStore.load(projectId);
+            if (snapshot == null) {
+                return false;
+            }
+            put(projectId, snapshot.getProject(), snapshot.getClassDiagram());
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read the snapshot of project " + projectId, e);
+            return false;
+        }
+    }
+
+    // ID of the most recent upload, null if nothing was uploaded yet
+    public String getLatestProjectId() {
+        return latestProjectId;
+    }
+}
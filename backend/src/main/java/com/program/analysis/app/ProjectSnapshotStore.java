@@ -0,0 +1,169 @@
+package com.program.analysis.app;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.program.analysis.app.representation.ProjectCollector;
+import com.program.analysis.app.representation.ProjectSnapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Keeps a snapshot file of every analysed project in a folder that survives restarts (the zip and unzip
+    folders are wiped at startup). A file holds the class diagram payload followed by the ProjectSnapshot
+    of the model, it is memory mapped when the project is loaded. Only the newest maxSnapshots are kept.
+    Without a folder nothing is stored.
+ */
+@Component
+public class ProjectSnapshotStore {
+    private static final String SUFFIX = ".snapshot";
+    // project IDs are UUIDs, anything else never names a file
+    private static final Pattern PROJECT_ID = Pattern.compile("[A-Za-z0-9-]+");
+
+    private File folder;
+    private int maxSnapshots;
+
+    public ProjectSnapshotStore(@Value("${analysis.snapshot.folder:}") String folder,
+            @Value("${analysis.snapshot.max:64}") int maxSnapshots) {
+        this.folder = folder.isEmpty() ? null : new File(folder).getAbsoluteFile();
+        this.maxSnapshots = Math.max(1, maxSnapshots);
+        if (this.folder != null) {
+            this.folder.mkdirs();
+        }
+    }
+
+    public boolean isEnabled() {
+        return folder != null;
+    }
+
+    /*
+        IDs of the stored projects, oldest first
+     */
+    public List<String> getProjectIds() {
+        List<String> projectIds = new ArrayList<String>();
+        for (File file: listSnapshots()) {
+            projectIds.add(file.getName().substring(0, file.getName().length() - SUFFIX.length()));
+        }
+        return projectIds;
+    }
+
+    /*
+        Write the snapshot to a temporary file first so a crash never leaves half a snapshot behind
+     */
+    public void save(String projectId, ProjectCollector project, ClassDiagramPayload classDiagram) throws IOException {
+        File file = getFile(projectId);
+        if (file == null) {
+            return;
+        }
+        File temporary = new File(folder, projectId + SUFFIX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            writeBytes(out, classDiagram.getJson());
+            writeBytes(out, classDiagram.getGzip());
+            ProjectSnapshot.write(project, out);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+    }
+
+    // synchronized so concurrent uploads do not delete more than the oldest snapshots between them
+    private synchronized void prune() throws IOException {
+        List<File> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - maxSnapshots; i++) {
+            Files.deleteIfExists(snapshots.get(i).toPath());
+        }
+    }
+
+    /*
+        Read a stored project back, null if there is no snapshot of it
+     */
+    public Snapshot load(String projectId) throws IOException {
+        File file = getFile(projectId);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] json = readBytes(buffer);
+            byte[] gzip = readBytes(buffer);
+            ProjectCollector project = ProjectSnapshot.read(buffer);
+            return new Snapshot(project, ClassDiagramPayload.restore(json, gzip));
+        } catch (RuntimeException e) {
+            // a truncated or corrupt file
+            throw new IOException("Unreadable snapshot " + file.getName(), e);
+        }
+    }
+
+    private File getFile(String projectId) {
+        if (folder == null || projectId == null || !PROJECT_ID.matcher(projectId).matches()) {
+            return null;
+        }
+        return new File(folder, projectId + SUFFIX);
+    }
+
+    private List<File> listSnapshots() {
+        if (folder == null) {
+            return new ArrayList<File>();
+        }
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        List<File> snapshots = new ArrayList<File>(Arrays.asList(files == null ? new File[0] : files));
+        // read each time once, a file deleted or replaced during the sort would otherwise break the comparator
+        Map<File, Long> modified = new HashMap<File, Long>();
+        for (File snapshot : snapshots) {
+            modified.put(snapshot, snapshot.lastModified());
+        }
+        snapshots.sort(Comparator.comparingLong(modified::get));
+        return snapshots;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static class Snapshot {
+        private ProjectCollector project;
+        private ClassDiagramPayload classDiagram;
+
+        Snapshot(ProjectCollector project, ClassDiagramPayload classDiagram) {
+            this.project = project;
+            this.classDiagram = classDiagram;
+        }
+
+        public ProjectCollector getProject() {
+            return project;
+        }
+
+        public ClassDiagramPayload getClassDiagram() {
+            return classDiagram;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.program.analysis.app;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.program.analysis.app.representation.SequenceOptions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Sequence diagram JSON by (project, class, method, options). The cache is bounded by the total length of
+    the cached JSON and evicts with W-TinyLFU. Concurrent requests for the same diagram wait for one
+    computation instead of each running their own.
+ */
+@Component
+public class SequenceDiagramCache {
+    public static final long DEFAULT_MAX_WEIGHT = 32 * 1024 * 1024;
+
+    private Cache<Key, String> cache;
+
+    public SequenceDiagramCache(@Value("${analysis.sequence.cache.max-weight:" + DEFAULT_MAX_WEIGHT + "}") long maxWeight) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(0, maxWeight))
+                .weigher((Key key, String json) -> json.length())
+                .recordStats()
+                .build();
+    }
+
+    public String get(String projectId, String className, String methodName, SequenceOptions options, Supplier<String> loader) {
+        return cache.get(new Key(projectId, className, methodName, options), key -> loader.get());
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getEstimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private static class Key {
+        private String projectId;
+        private String className;
+        private String methodName;
+        private SequenceOptions options;
+
+        Key(String projectId, String className, String methodName, SequenceOptions options) {
+            this.projectId = projectId;
+            this.className = className;
+            this.methodName = methodName;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return projectId.equals(other.projectId) && className.equals(other.className)
+                    && methodName.equals(other.methodName) && options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, className, methodName, options);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.program.analysis.app;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.program.analysis.app.representation.AnalysisProgress;
+
+import org.json.JSONObject;
+
+/*
+    State of an upload analysed in the background. The analysing thread (and the parser threads) update it,
+    requests read it, every change is passed on to the listeners.
+ */
+public class UploadJob implements AnalysisProgress {
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    public static final String QUEUED = "queued";
+    public static final String EXTRACTING = "extracting";
+    public static final String REGISTERING = "registering";
+    public static final String DONE = "done";
+
+    private String jobId;
+    private volatile Status status = Status.QUEUED;
+    private volatile String phase = QUEUED;
+    private volatile int filesParsed;
+    private volatile int filesTotal;
+    private volatile String projectId;
+    private volatile String error;
+    private List<Consumer<UploadJob>> listeners = new CopyOnWriteArrayList<Consumer<UploadJob>>();
+
+    UploadJob(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getFilesParsed() {
+        return filesParsed;
+    }
+
+    public int getFilesTotal() {
+        return filesTotal;
+    }
+
+    // ID of the analysed project once the job succeeded
+    public String getProjectId() {
+        return projectId;
+    }
+
+    // why the job failed
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    @Override
+    public void phase(String phase) {
+        this.phase = phase;
+        changed();
+    }
+
+    @Override
+    public void filesParsed(int parsed, int total) {
+        this.filesParsed = parsed;
+        this.filesTotal = total;
+        changed();
+    }
+
+    void started() {
+        this.status = Status.RUNNING;
+        changed();
+    }
+
+    void succeeded(String projectId) {
+        this.projectId = projectId;
+        this.phase = DONE;
+        this.status = Status.SUCCEEDED;
+        changed();
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+        changed();
+    }
+
+    public void addListener(Consumer<UploadJob> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<UploadJob> listener) {
+        listeners.remove(listener);
+    }
+
+    private void changed() {
+        for (Consumer<UploadJob> listener: listeners) {
+            listener.accept(this);
+        }
+    }
+
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("jobId", jobId);
+        json.put("status", status.name());
+        json.put("phase", phase);
+        json.put("filesParsed", filesParsed);
+        json.put("filesTotal", filesTotal);
+        json.put("projectId", projectId);
+        json.put("error", error);
+        return json;
+    }
+}
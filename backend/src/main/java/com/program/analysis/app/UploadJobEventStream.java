@@ -0,0 +1,63 @@
+package com.program.analysis.app;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+    Server-Sent Events stream of one upload job: a "progress" event with the job's JSON whenever its phase or
+    status changes, at most every minInterval milliseconds while files are parsed, and a last one when it
+    finishes, after which the stream is completed.
+ */
+public class UploadJobEventStream implements Consumer<UploadJob> {
+    private UploadJob job;
+    private SseEmitter emitter;
+    private long minInterval;
+    private long lastSent;
+    private String lastPhase;
+    private boolean completed;
+
+    public UploadJobEventStream(UploadJob job, long timeout, long minInterval) {
+        this.job = job;
+        this.emitter = new SseEmitter(timeout);
+        this.minInterval = minInterval;
+        emitter.onCompletion(() -> job.removeListener(this));
+        emitter.onTimeout(() -> job.removeListener(this));
+    }
+
+    /*
+        Start listening, the current state is sent right away
+     */
+    public SseEmitter open() {
+        job.addListener(this);
+        accept(job);
+        return emitter;
+    }
+
+    @Override
+    public synchronized void accept(UploadJob job) {
+        if (completed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean finished = job.isFinished();
+        if (!finished && job.getPhase().equals(lastPhase) && now - lastSent < minInterval) {
+            return;
+        }
+        lastSent = now;
+        lastPhase = job.getPhase();
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(job.toJSON().toString(), MediaType.APPLICATION_JSON));
+            if (finished) {
+                completed = true;
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away
+            completed = true;
+            job.removeListener(this);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.program.analysis.app;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+    Runs uploads in the background on a fixed number of threads with a bounded queue, a full queue rejects
+    the upload (RejectedExecutionException) instead of piling up work. Finished jobs stay queryable until
+    more than maxFinishedJobs have finished after them.
+ */
+@Component
+public class UploadJobManager {
+    private ThreadPoolExecutor executor;
+    private int maxFinishedJobs;
+    private ConcurrentHashMap<String, UploadJob> jobs = new ConcurrentHashMap<String, UploadJob>();
+    private Queue<UploadJob> submitOrder = new ConcurrentLinkedQueue<UploadJob>();
+
+    public UploadJobManager(@Value("${analysis.jobs.threads:2}") int threads,
+            @Value("${analysis.jobs.queue:16}") int queueSize,
+            @Value("${analysis.jobs.retained:64}") int maxFinishedJobs) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "upload-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxFinishedJobs = Math.max(1, maxFinishedJobs);
+    }
+
+    /*
+        The analysis of an upload, returns the project ID
+     */
+    public interface Task {
+        String run(UploadJob job) throws Exception;
+    }
+
+    public UploadJob submit(Task task) {
+        UploadJob job = new UploadJob(UUID.randomUUID().toString());
+        jobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getJobId());
+            throw e;
+        }
+        submitOrder.add(job);
+        dropFinishedJobs();
+        return job;
+    }
+
+    public UploadJob get(String jobId) throws UploadJobNotFoundException {
+        UploadJob job = jobId == null ? null : jobs.get(jobId);
+        if (job == null) {
+            throw new UploadJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    private void run(UploadJob job, Task task) {
+        job.started();
+        try {
+            job.succeeded(task.run(job));
+        } catch (Exception e) {
+            job.failed(e.getLocalizedMessage() == null ? e.getClass().getSimpleName() : e.getLocalizedMessage());
+        } finally {
+            dropFinishedJobs();
+        }
+    }
+
+    // running and queued jobs are never dropped
+    private void dropFinishedJobs() {
+        int finished = 0;
+        for (UploadJob job: submitOrder) {
+            if (job.isFinished()) {
+                finished++;
+            }
+        }
+        Iterator<UploadJob> oldest = submitOrder.iterator();
+        while (finished > maxFinishedJobs && oldest.hasNext()) {
+            UploadJob job = oldest.next();
+            if (job.isFinished()) {
+                oldest.remove();
+                jobs.remove(job.getJobId());
+                finished--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
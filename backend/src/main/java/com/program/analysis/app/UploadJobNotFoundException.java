@@ -0,0 +1,10 @@
+package com.program.analysis.app;
+
+public class UploadJobNotFoundException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public UploadJobNotFoundException(String jobId) {
+        super("No upload job with ID " + jobId);
+	}
+}
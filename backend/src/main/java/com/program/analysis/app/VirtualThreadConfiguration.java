@@ -0,0 +1,35 @@
+package com.program.analysis.app;
+
+import java.util.concurrent.ExecutorService;
+
+import com.program.analysis.app.representation.AnalysisThreads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    analysis.threads.virtual=true: Tomcat handles every request on its own virtual thread and the parse,
+    compile and extract pools use virtual threads. On a runtime without virtual threads (before Java 21)
+    everything stays on platform threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "analysis.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadRequests() {
+        if (!AnalysisThreads.setVirtual(true)) {
+            LOGGER.warn("analysis.threads.virtual is set but virtual threads need Java 21 or newer, using platform threads");
+            return factory -> { };
+        }
+        ExecutorService executor = AnalysisThreads.newVirtualThreadPerTaskExecutor();
+        LOGGER.info("Handling requests and analysis tasks on virtual threads");
+        return factory -> factory.addConnectorCustomizers(connector -> connector.getProtocolHandler().setExecutor(executor));
+    }
+}
@@ -1,20 +1,44 @@
 package com.program.analysis.app;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import com.program.analysis.app.representation.AnalysisThreads;
+
 import org.apache.commons.io.FileUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 public class ZipFileStorageManager {
     private String DEFAULT_ZIP_PATH;
     private String DEFAULT_UPZIP_PATH;
+    private int extractParallelism = 1;
     
     public ZipFileStorageManager() {
     }
 
+    /*
+        Number of threads used to extract the entries of a zip, 1 (the default) extracts on the calling thread
+     */
+    public ZipFileStorageManager setExtractParallelism(int extractParallelism) {
+        this.extractParallelism = Math.max(1, extractParallelism);
+        return this;
+    }
+
+    public int getExtractParallelism() {
+        return extractParallelism;
+    }
+
     public ZipFileStorageManager initDefaultFolders() {
         File unzipDirectory = new File("src/main/zip");
         DEFAULT_ZIP_PATH = unzipDirectory.getAbsolutePath();
@@ -51,6 +75,16 @@ public class ZipFileStorageManager {
         }
     }
 
+    /*
+        Returns a storage manager working in a sub folder of this manager's folders, so that uploads of
+        different projects never share files
+     */
+    public ZipFileStorageManager forProject(String projectId) throws IOException {
+        ZipFileStorageManager manager = new ZipFileStorageManager().setExtractParallelism(extractParallelism);
+        manager.setPaths(DEFAULT_ZIP_PATH + "/" + projectId, DEFAULT_UPZIP_PATH + "/" + projectId, false, true);
+        return manager;
+    }
+
     public void cleanSourceFolder() {
         if (DEFAULT_ZIP_PATH != null) {
             File zipDirectory = new File(DEFAULT_ZIP_PATH);
@@ -122,39 +156,96 @@ public class ZipFileStorageManager {
             cleanSourceFolder();
         }
         File file = new File(DEFAULT_ZIP_PATH + "/" + multipartFile.getOriginalFilename());
-        try (OutputStream os = new FileOutputStream(file)) {
-            os.write(multipartFile.getBytes());
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
+    // a stored zip, to be read without extracting it
+    public InputStream openFile(String fileName) throws IOException {
+        return new BufferedInputStream(new FileInputStream(DEFAULT_ZIP_PATH + "/" + fileName));
+    }
+
     /*
         This method unzip a .zip file and returns a list of files. The files from .zip will be extracted and
-        store at default location: "backend/src/main/java/unzip".
+        store at default location: "backend/src/main/java/unzip". Entries are copied with buffered NIO copies,
+        on extractParallelism threads when it is above 1.
      */
     public File[] unzipFile(String fileName, boolean cleanBeforeSave) throws IOException {
         if (cleanBeforeSave) {
             cleanDestinationFolder();
         }
+        Path destination = Paths.get(DEFAULT_UPZIP_PATH).toAbsolutePath().normalize();
         try (ZipFile file = new ZipFile(DEFAULT_ZIP_PATH + "/" + fileName)) {
+            List<ZipEntry> fileEntries = new ArrayList<ZipEntry>();
             Enumeration<? extends ZipEntry> zipEntries = file.entries();
             while (zipEntries.hasMoreElements()) {
                 ZipEntry zipEntry = zipEntries.nextElement();
-                File newFile = new File(DEFAULT_UPZIP_PATH, zipEntry.getName());
-                newFile.getParentFile().mkdirs();
-                if (!zipEntry.isDirectory()) {
-                    try (FileOutputStream outputStream = new FileOutputStream(newFile)) {
-                        BufferedInputStream inputStream = new BufferedInputStream(file.getInputStream(zipEntry));
-                        while (inputStream.available() > 0) {
-                            outputStream.write(inputStream.read());
-                        }
-                        inputStream.close();
-                    }
+                Path newFile = resolveEntry(destination, zipEntry);
+                if (zipEntry.isDirectory()) {
+                    Files.createDirectories(newFile);
+                } else {
+                    Files.createDirectories(newFile.getParent());
+                    fileEntries.add(zipEntry);
+                }
+            }
+            if (extractParallelism <= 1 || fileEntries.size() <= 1) {
+                for (ZipEntry zipEntry: fileEntries) {
+                    extractEntry(file, zipEntry, destination);
                 }
+            } else {
+                extractInParallel(file, fileEntries, destination);
             }
             File newfile = new File(DEFAULT_UPZIP_PATH);
             return newfile.listFiles();
-        } catch (IOException e) {
-            throw e;
         }
     }
+
+    /*
+        ZipFile can be read from several threads at once, so every entry is copied as its own task
+     */
+    private void extractInParallel(ZipFile file, List<ZipEntry> fileEntries, Path destination) throws IOException {
+        ExecutorService pool = AnalysisThreads.newFixedThreadPool(Math.min(extractParallelism, fileEntries.size()));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (ZipEntry zipEntry: fileEntries) {
+                futures.add(pool.submit(() -> {
+                    extractEntry(file, zipEntry, destination);
+                    return null;
+                }));
+            }
+            for (Future<Void> future: futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Extraction was interrupted");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Failed to extract " + file.getName(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void extractEntry(ZipFile file, ZipEntry zipEntry, Path destination) throws IOException {
+        try (InputStream inputStream = file.getInputStream(zipEntry)) {
+            Files.copy(inputStream, resolveEntry(destination, zipEntry), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+        Entries like "../../x" would be written outside of the unzip folder (zip slip), they are rejected
+     */
+    private Path resolveEntry(Path destination, ZipEntry zipEntry) throws IOException {
+        Path newFile = destination.resolve(zipEntry.getName()).normalize();
+        if (!newFile.startsWith(destination)) {
+            throw new IOException("Zip entry is outside of the target folder: " + zipEntry.getName());
+        }
+        return newFile;
+    }
 }
@@ -0,0 +1,36 @@
+package com.program.analysis.app.representation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/*
+    Receives the timings of a ProjectCollector parse and of the sequence diagrams expanded from it. fileParsed
+    may be called from several parser threads.
+ */
+public interface AnalysisMetrics {
+    // a phase of the analysis (see AnalysisProgress) finished, allocatedBytes is what the analysing thread allocated
+    void phase(String phase, long nanos, long allocatedBytes);
+
+    // one java file was parsed
+    void fileParsed(long nanos);
+
+    // the parse of an upload finished, files were parsed in nanos (files reused or skipped are not counted)
+    void filesParsed(int files, long nanos);
+
+    // a sequence diagram was expanded from the compiled sequences
+    void sequenceExpanded(int expandedNodes);
+
+    // a compile with symbol resolution is done, timedOut lookups were not tried since its time was up
+    void typesResolved(int resolved, int unresolved, int timedOut);
+
+    /*
+        Bytes allocated by the current thread so far, -1 when the JVM can not tell
+     */
+    static long currentThreadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
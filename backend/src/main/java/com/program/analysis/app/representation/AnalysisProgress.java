@@ -0,0 +1,16 @@
+package com.program.analysis.app.representation;
+
+/*
+    Receives the progress of a ProjectCollector parse. filesParsed may be called from several parser threads.
+ */
+public interface AnalysisProgress {
+    String READING = "reading";
+    String PARSING = "parsing";
+    String DEPENDENCIES = "dependencies";
+    String SEQUENCES = "sequences";
+
+    void phase(String phase);
+
+    // parsed of total java files are done, files reused from a base project count as done from the start
+    void filesParsed(int parsed, int total);
+}
@@ -0,0 +1,69 @@
+package com.program.analysis.app.representation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+    Where the worker threads of the analysis come from: platform threads by default, virtual threads once
+    setVirtual(true) was called on a Java 21+ runtime. Virtual threads are created through reflection so the
+    code still compiles for (and runs on) older Java versions.
+    Pools keep their size either way, for the CPU bound parsing the size is what limits the concurrency.
+ */
+public class AnalysisThreads {
+    private static final Object VIRTUAL_BUILDER = virtualBuilder();
+    private static volatile boolean virtual = false;
+
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL_BUILDER != null;
+    }
+
+    /*
+        Use virtual threads from now on, returns false (and keeps platform threads) when the runtime has none
+     */
+    public static boolean setVirtual(boolean useVirtual) {
+        virtual = useVirtual && isVirtualAvailable();
+        return virtual == useVirtual;
+    }
+
+    public static boolean isVirtual() {
+        return virtual;
+    }
+
+    public static ExecutorService newFixedThreadPool(int threads) {
+        return virtual ? Executors.newFixedThreadPool(threads, virtualThreadFactory()) : Executors.newFixedThreadPool(threads);
+    }
+
+    /*
+        An unbounded executor starting a virtual thread per task, for the web server's request threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isVirtualAvailable()) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer");
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, virtualThreadFactory());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(VIRTUAL_BUILDER);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread factory", e);
+        }
+    }
+
+    private static Object virtualBuilder() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            return ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.program.analysis.app.representation;
+
+import java.util.Arrays;
+
+/*
+    Project wide call graph, read once from the call sites of the compiled sequences. The nodes are the
+    sequence IDs (one per (class, method) pair), the edges are stored in compressed sparse row form:
+    the call sites of node i are calleeStart[i] .. calleeStart[i + 1] - 1 in callees (the called node),
+    sites (position of the call in the caller's code) and contexts (the innermost loop/alt/opt around the
+    call, PLAIN outside of them), sorted by callee. The distinct callers of node i are
+    callers[callerStart[i]] .. callers[callerStart[i + 1] - 1].
+    A sequence that failed to build has no call sites.
+ */
+public class CallGraph {
+    public static final int PLAIN = 0;
+    public static final int LOOP = 1;
+    public static final int ALT = 2;
+    public static final int OPT = 3;
+    private static final String[] CONTEXT_NAMES = {"none", "loop", "alt", "opt"};
+
+    private CompactSequences sequences;
+    private int[] calleeStart;
+    private int[] callees;
+    private int[] sites;
+    private byte[] contexts;
+    private int[] callerStart;
+    private int[] callers;
+
+    private CallGraph(CompactSequences sequences) {
+        this.sequences = sequences;
+    }
+
+    static CallGraph build(CompactSequences sequences) {
+        CallGraph graph = new CallGraph(sequences);
+        new Builder(sequences).build(graph);
+        return graph;
+    }
+
+    // number of nodes, every sequence ID is a node
+    public int size() {
+        return sequences.size();
+    }
+
+    // node of the method of the class, -1 if the project has no such method
+    public int getId(String className, String methodName) {
+        return sequences.getId(className, methodName);
+    }
+
+    // "class#method" of the node
+    public String getKey(int id) {
+        return sequences.getKey(id);
+    }
+
+    public String getClassName(int id) {
+        String key = sequences.getKey(id);
+        return key.substring(0, key.indexOf('#'));
+    }
+
+    public String getMethodName(int id) {
+        String key = sequences.getKey(id);
+        return key.substring(key.indexOf('#') + 1);
+    }
+
+    public int getCallSiteCount() {
+        return callees.length;
+    }
+
+    // number of call sites in the method
+    public int getCallSites(int id) {
+        return calleeStart[id + 1] - calleeStart[id];
+    }
+
+    // number of distinct methods the method calls
+    public int getFanOut(int id) {
+        int fanOut = 0;
+        for (int i = calleeStart[id]; i < calleeStart[id + 1]; i++) {
+            if (i == calleeStart[id] || callees[i] != callees[i - 1]) {
+                fanOut++;
+            }
+        }
+        return fanOut;
+    }
+
+    // number of distinct methods that call the method
+    public int getFanIn(int id) {
+        return callerStart[id + 1] - callerStart[id];
+    }
+
+    public int getCallee(int callSite) {
+        return callees[callSite];
+    }
+
+    public int getCallSiteStart(int id) {
+        return calleeStart[id];
+    }
+
+    public int getCallSiteEnd(int id) {
+        return calleeStart[id + 1];
+    }
+
+    // PLAIN, LOOP, ALT or OPT
+    public int getContext(int callSite) {
+        return contexts[callSite];
+    }
+
+    public static String getContextName(int context) {
+        return CONTEXT_NAMES[context];
+    }
+
+    // position of the call in the code of the caller's sequence
+    int getSite(int callSite) {
+        return sites[callSite];
+    }
+
+    /*
+        Methods reachable from id in at most maxDepth calls, in breadth first order without id itself (unless
+        it is reachable through a cycle). With reverse the methods that reach id are returned instead.
+        distances, when not null, gets the number of calls to every returned method at the same index.
+     */
+    public int[] reachable(int id, int maxDepth, boolean reverse, int[] distances) {
+        int[] distance = new int[size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = id;
+        distance[id] = 0;
+        int[] found = new int[size()];
+        int foundCount = 0;
+        boolean selfFound = false;
+        while (head < tail) {
+            int node = queue[head++];
+            if (distance[node] >= maxDepth) {
+                continue;
+            }
+            int start = reverse ? callerStart[node] : calleeStart[node];
+            int end = reverse ? callerStart[node + 1] : calleeStart[node + 1];
+            for (int i = start; i < end; i++) {
+                int next = reverse ? callers[i] : callees[i];
+                if (next == id && !selfFound) {
+                    selfFound = true;
+                    if (distances != null) {
+                        distances[foundCount] = distance[node] + 1;
+                    }
+                    found[foundCount++] = id;
+                }
+                if (distance[next] < 0) {
+                    distance[next] = distance[node] + 1;
+                    queue[tail++] = next;
+                    if (distances != null) {
+                        distances[foundCount] = distance[next];
+                    }
+                    found[foundCount++] = next;
+                }
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    /*
+        Reads the call sites out of the sequence code. Every call object sits in the value tree of its
+        sequence; its "call" array was encoded as CALL, the loop/alt/opt objects around it give the context.
+     */
+    private static class Builder {
+        private CompactSequences sequences;
+        private int typeKey;
+        private int callKey;
+        private int[] contextOf;
+        private int caller;
+        private int[] edgeCaller = new int[64];
+        private int[] edgeCallee = new int[64];
+        private int[] edgeSite = new int[64];
+        private byte[] edgeContext = new byte[64];
+        private int edgeCount;
+
+        Builder(CompactSequences sequences) {
+            this.sequences = sequences;
+            this.typeKey = sequences.findString("type");
+            this.callKey = sequences.findString("call");
+            this.contextOf = new int[] {sequences.findString("loop"), sequences.findString("alt"), sequences.findString("opt")};
+        }
+
+        void build(CallGraph graph) {
+            int size = sequences.size();
+            for (caller = 0; caller < size; caller++) {
+                if (sequences.getFailure(caller) == null && sequences.getEnd(caller) > sequences.getStart(caller)) {
+                    scan(sequences.getStart(caller), PLAIN);
+                }
+            }
+
+            // the call sites come out grouped by caller and in code order, within a caller they are sorted
+            // by callee (code order among the sites of one callee)
+            graph.calleeStart = new int[size + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                graph.calleeStart[edgeCaller[i] + 1]++;
+            }
+            for (int id = 0; id < size; id++) {
+                graph.calleeStart[id + 1] += graph.calleeStart[id];
+            }
+            graph.callees = new int[edgeCount];
+            graph.sites = new int[edgeCount];
+            graph.contexts = new byte[edgeCount];
+            for (int id = 0; id < size; id++) {
+                int start = graph.calleeStart[id];
+                long[] order = new long[graph.calleeStart[id + 1] - start];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = ((long) edgeCallee[start + i] << 32) | i;
+                }
+                Arrays.sort(order);
+                for (int i = 0; i < order.length; i++) {
+                    int edge = start + (int) order[i];
+                    graph.callees[start + i] = edgeCallee[edge];
+                    graph.sites[start + i] = edgeSite[edge];
+                    graph.contexts[start + i] = edgeContext[edge];
+                }
+            }
+
+            // distinct callers: every (caller, callee) pair once
+            graph.callerStart = new int[size + 1];
+            for (int id = 0; id < size; id++) {
+                for (int i = graph.calleeStart[id]; i < graph.calleeStart[id + 1]; i++) {
+                    if (i == graph.calleeStart[id] || graph.callees[i] != graph.callees[i - 1]) {
+                        graph.callerStart[graph.callees[i] + 1]++;
+                    }
+                }
+            }
+            for (int id = 0; id < size; id++) {
+                graph.callerStart[id + 1] += graph.callerStart[id];
+            }
+            graph.callers = new int[graph.callerStart[size]];
+            int[] next = Arrays.copyOf(graph.callerStart, size);
+            for (int id = 0; id < size; id++) {
+                for (int i = graph.calleeStart[id]; i < graph.calleeStart[id + 1]; i++) {
+                    if (i == graph.calleeStart[id] || graph.callees[i] != graph.callees[i - 1]) {
+                        graph.callers[next[graph.callees[i]]++] = id;
+                    }
+                }
+            }
+        }
+
+        // scans the value at pc and returns the position after it
+        private int scan(int pc, int context) {
+            switch (sequences.getCode(pc)) {
+                case CompactSequences.ARRAY: {
+                    int length = sequences.getCode(pc + 1);
+                    pc += 2;
+                    for (int i = 0; i < length; i++) {
+                        pc = scan(pc, context);
+                    }
+                    return pc;
+                }
+                case CompactSequences.OBJECT: {
+                    int size = sequences.getCode(pc + 1);
+                    int inner = getObjectContext(pc, context);
+                    pc += 2;
+                    for (int i = 0; i < size; i++) {
+                        int key = sequences.getCode(pc);
+                        if (key == callKey && sequences.getCode(pc + 1) == CompactSequences.CALL) {
+                            addCallSite(sequences.getCode(pc + 2), pc + 1, context);
+                            pc += 3;
+                        } else {
+                            pc = scan(pc + 1, inner);
+                        }
+                    }
+                    return pc;
+                }
+                case CompactSequences.STRING:
+                case CompactSequences.INT:
+                case CompactSequences.CALL:
+                    return pc + 2;
+                default:
+                    return pc + 1;
+            }
+        }
+
+        // the context of the values of the object at pc, its "type" names a loop, alt or opt
+        private int getObjectContext(int pc, int context) {
+            if (typeKey < 0) {
+                return context;
+            }
+            int size = sequences.getCode(pc + 1);
+            pc += 2;
+            for (int i = 0; i < size; i++) {
+                if (sequences.getCode(pc) == typeKey && sequences.getCode(pc + 1) == CompactSequences.STRING) {
+                    int type = sequences.getCode(pc + 2);
+                    for (int c = 0; c < contextOf.length; c++) {
+                        if (contextOf[c] >= 0 && type == contextOf[c]) {
+                            return c + 1;
+                        }
+                    }
+                    return context;
+                }
+                pc = skip(pc + 1);
+            }
+            return context;
+        }
+
+        private int skip(int pc) {
+            switch (sequences.getCode(pc)) {
+                case CompactSequences.ARRAY: {
+                    int length = sequences.getCode(pc + 1);
+                    pc += 2;
+                    for (int i = 0; i < length; i++) {
+                        pc = skip(pc);
+                    }
+                    return pc;
+                }
+                case CompactSequences.OBJECT: {
+                    int size = sequences.getCode(pc + 1);
+                    pc += 2;
+                    for (int i = 0; i < size; i++) {
+                        pc = skip(pc + 1);
+                    }
+                    return pc;
+                }
+                case CompactSequences.STRING:
+                case CompactSequences.INT:
+                case CompactSequences.CALL:
+                    return pc + 2;
+                default:
+                    return pc + 1;
+            }
+        }
+
+        private void addCallSite(int callee, int site, int context) {
+            if (edgeCount == edgeCaller.length) {
+                edgeCaller = Arrays.copyOf(edgeCaller, edgeCount * 2);
+                edgeCallee = Arrays.copyOf(edgeCallee, edgeCount * 2);
+                edgeSite = Arrays.copyOf(edgeSite, edgeCount * 2);
+                edgeContext = Arrays.copyOf(edgeContext, edgeCount * 2);
+            }
+            edgeCaller[edgeCount] = caller;
+            edgeCallee[edgeCount] = callee;
+            edgeSite[edgeCount] = site;
+            edgeContext[edgeCount] = (byte) context;
+            edgeCount++;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.program.analysis.app.representation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    AST free form of the shallow sequence diagram of every method of a project. Each sequence is a run of
+    ints in code, written in prefix order:
+    - ARRAY n, followed by n values
+    - OBJECT n, followed by n (key string ID, value) pairs
+    - STRING id / INT value / TRUE / FALSE / NULL
+    - CALL sequence ID, an empty "call" array to be filled with the callee's sequence (a call site)
+    Strings (class names, types, "loop", "alt"...) are interned in one table per project.
+    For every sequence the names of the classes it was built from are kept as well, so a later upload of the
+    project can tell which sequences are still valid.
+ */
+class CompactSequences {
+    static final int ARRAY = 0;
+    static final int OBJECT = 1;
+    static final int STRING = 2;
+    static final int INT = 3;
+    static final int TRUE = 4;
+    static final int FALSE = 5;
+    static final int NULL = 6;
+    static final int CALL = 7;
+
+    private static final CompactSequences EMPTY = new CompactSequences(new StringTable(), new int[0], new int[] {0},
+            new int[0], new String[0], Collections.<String, Integer>emptyMap(), new int[] {0}, new int[0]);
+
+    private StringTable strings;
+    private int[] code;
+    // sequence i is code[start[i]] .. code[start[i + 1] - 1]
+    private int[] start;
+    // ID of the method every sequence belongs to, a method reached through several classes has one ID
+    private int[] methodOf;
+    // why the sequence could not be built, null for the sequences that were built
+    private String[] failures;
+    private Map<String, Integer> ids;
+    private String[] keys;
+    // string IDs of the looked up class names of sequence i are lookups[lookupStart[i]] .. lookups[lookupStart[i + 1] - 1]
+    private int[] lookupStart;
+    private int[] lookups;
+
+    CompactSequences(StringTable strings, int[] code, int[] start, int[] methodOf, String[] failures,
+            Map<String, Integer> ids, int[] lookupStart, int[] lookups) {
+        this.strings = strings;
+        this.code = code;
+        this.start = start;
+        this.methodOf = methodOf;
+        this.failures = failures;
+        this.ids = ids;
+        this.lookupStart = lookupStart;
+        this.lookups = lookups;
+        this.keys = new String[methodOf.length];
+        for (Map.Entry<String, Integer> entry: ids.entrySet()) {
+            keys[entry.getValue()] = entry.getKey();
+        }
+    }
+
+    static CompactSequences empty() {
+        return EMPTY;
+    }
+
+    static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    /*
+        ID of the sequence of the given method, -1 if the project has no such method
+     */
+    int getId(String className, String methodName) {
+        Integer id = ids.get(key(className, methodName));
+        return id == null ? -1 : id;
+    }
+
+    int size() {
+        return methodOf.length;
+    }
+
+    int getStart(int id) {
+        return start[id];
+    }
+
+    int getEnd(int id) {
+        return start[id + 1];
+    }
+
+    int getCode(int pc) {
+        return code[pc];
+    }
+
+    int getMethod(int id) {
+        return methodOf[id];
+    }
+
+    String getFailure(int id) {
+        return failures[id];
+    }
+
+    String getString(int id) {
+        return strings.get(id);
+    }
+
+    // ID of an interned string, -1 if no sequence uses it
+    int findString(String s) {
+        return strings.find(s);
+    }
+
+    // "class#method" of the sequence
+    String getKey(int id) {
+        return keys[id];
+    }
+
+    int getLookupStart(int id) {
+        return lookupStart[id];
+    }
+
+    int getLookupEnd(int id) {
+        return lookupStart[id + 1];
+    }
+
+    // string ID of a looked up class name
+    int getLookup(int index) {
+        return lookups[index];
+    }
+
+    /*
+        Binary form for ProjectSnapshot: the string table, then the int arrays, the failures and the keys
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(strings.size());
+        for (int i = 0; i < strings.size(); i++) {
+            ProjectSnapshot.writeString(out, strings.get(i));
+        }
+        ProjectSnapshot.writeInts(out, code);
+        ProjectSnapshot.writeInts(out, start);
+        ProjectSnapshot.writeInts(out, methodOf);
+        ProjectSnapshot.writeInts(out, lookupStart);
+        ProjectSnapshot.writeInts(out, lookups);
+        for (int id = 0; id < methodOf.length; id++) {
+            ProjectSnapshot.writeString(out, failures[id]);
+            ProjectSnapshot.writeString(out, keys[id]);
+        }
+    }
+
+    static CompactSequences readFrom(ByteBuffer buffer) {
+        StringTable strings = new StringTable();
+        int stringCount = buffer.getInt();
+        for (int i = 0; i < stringCount; i++) {
+            strings.intern(ProjectSnapshot.readString(buffer));
+        }
+        int[] code = ProjectSnapshot.readInts(buffer);
+        int[] start = ProjectSnapshot.readInts(buffer);
+        int[] methodOf = ProjectSnapshot.readInts(buffer);
+        int[] lookupStart = ProjectSnapshot.readInts(buffer);
+        int[] lookups = ProjectSnapshot.readInts(buffer);
+        String[] failures = new String[methodOf.length];
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        for (int id = 0; id < methodOf.length; id++) {
+            failures[id] = ProjectSnapshot.readString(buffer);
+            ids.put(ProjectSnapshot.readString(buffer), id);
+        }
+        return new CompactSequences(strings, code, start, methodOf, failures, ids, lookupStart, lookups);
+    }
+
+    /*
+        Whether the sequence may read one of the given classes. A sequence that failed to build always does,
+        so it is tried again.
+     */
+    boolean looksUpAny(int id, Set<String> classNames) {
+        if (failures[id] != null) {
+            return true;
+        }
+        for (int i = lookupStart[id]; i < lookupStart[id + 1]; i++) {
+            if (classNames.contains(strings.get(lookups[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
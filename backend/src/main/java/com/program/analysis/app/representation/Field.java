@@ -3,34 +3,46 @@ package com.program.analysis.app.representation;
 import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 
+/*
+    The access, type and name are IDs in the string table of the project, the getters are given that table
+ */
 public class Field {
-    private String access;
-    private String type;
-    private String name;
-
-    public Field(FieldDeclaration declaration) {
-        // we need to make sure we are retriving the correct data
-        this.access = declaration.getAccessSpecifier().asString();
-        this.type = declaration.getCommonType().asString();
-        this.name = declaration.getVariables().get(0).getNameAsString();
+    private int access;
+    private int type;
+    private int name;
+
+    Field(FieldDeclaration declaration, StringTable strings) {
+        this.access = strings.intern(declaration.getAccessSpecifier().asString());
+        this.type = strings.intern(declaration.getCommonType().asString());
+        this.name = strings.intern(declaration.getVariables().get(0).getNameAsString());
     }
 
-    public Field(EnumConstantDeclaration declaration) {
-        this.access = "";
-        this.type = "";
-        this.name = declaration.getNameAsString();
+    Field(EnumConstantDeclaration declaration, StringTable strings) {
+        this(declaration.getNameAsString(), "", "", strings);
     }
 
-    public String getAccess() {
-        return access;
+    // a field read back from a ProjectSnapshot
+    Field(String name, String type, String access, StringTable strings) {
+        this.name = strings.intern(name);
+        this.type = strings.intern(type);
+        this.access = strings.intern(access);
     }
 
-    public String getType() {
-        return type;
+    // the same field in another table, for the copy of an unchanged class in a later upload
+    Field(Field other, StringTable from, StringTable strings) {
+        this(other.getName(from), other.getType(from), other.getAccess(from), strings);
     }
 
-    public String getName() {
-        return name;
+    public String getAccess(StringTable strings) {
+        return strings.get(access);
+    }
+
+    public String getType(StringTable strings) {
+        return strings.get(type);
+    }
+
+    public String getName(StringTable strings) {
+        return strings.get(name);
     }
 
 }
@@ -1,47 +1,97 @@
 package com.program.analysis.app.representation;
 
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 // This class is the representation of the data to be sent to front-end
 public class GraphElement {
-    private String className;
-    private String classType;
+    // the strings of the project's classes, className and classType are IDs in it
+    private StringTable strings;
+    private int className;
+    private int classType;
     private Set<Field> fields;
     private Set<Method> listOfMethods;
     private Set<String> inh;
     private Set<String> imp;
-    private Set<String> dep = new HashSet<String>();;
+    private Set<String> dep = new HashSet<String>();
     private Set<String> tp;
+    // every class name the dependencies are looked up for, filled on the first setDependency
+    private Set<String> referencedTypes;
 
     /*
-        This constructor manages all visitors to retrieve data from parsed data(CompilationUnit)
+        The GraphElements of the types of a compilation unit, see TypeCollector
     */
-    public GraphElement(CompilationUnit compilationUnit) {
-        ClassCollector classesCollector = new ClassCollector();
-        classesCollector.visit(compilationUnit, null);
-        this.className = classesCollector.getName();
-        this.classType = classesCollector.getType();
-        this.fields = classesCollector.getFields();
-        this.inh = classesCollector.getInheritance();
-        this.imp = classesCollector.getImplementation();
-        this.tp = classesCollector.getTypeParameter();
-        
-        MethodCollector methodCollector = new MethodCollector();
-        methodCollector.visit(compilationUnit, null);
-        this.listOfMethods = methodCollector.getMethodObj();
+    public static List<GraphElement> of(CompilationUnit compilationUnit) {
+        return of(compilationUnit, true);
+    }
+
+    /*
+        Without methodStatements the methods only get their signatures and bodies, the calls and control
+        statements the sequence diagrams are built from are left out
+    */
+    public static List<GraphElement> of(CompilationUnit compilationUnit, boolean methodStatements) {
+        return of(compilationUnit, methodStatements, new StringTable());
+    }
+
+    // with the strings interned in the table of the project
+    static List<GraphElement> of(CompilationUnit compilationUnit, boolean methodStatements, StringTable strings) {
+        TypeCollector collector = new TypeCollector(methodStatements, strings);
+        collector.visit(compilationUnit, null);
+        return collector.getElements();
+    }
+
+    /*
+        A copy for a later upload of an unchanged file, in the string table of that upload. It has its own
+        methods (their statements may be parsed again) and dependencies (they depend on the rest of the project).
+     */
+    GraphElement(GraphElement other, StringTable strings) {
+        this.strings = strings;
+        this.className = strings.intern(other.getClassName());
+        this.classType = strings.intern(other.getClassType());
+        this.fields = new HashSet<Field>();
+        for (Field f: other.fields) {
+            this.fields.add(new Field(f, other.strings, strings));
+        }
+        this.listOfMethods = new HashSet<Method>();
+        for (Method m: other.listOfMethods) {
+            this.listOfMethods.add(new Method(m, other.strings, strings));
+        }
+        this.inh = other.inh;
+        this.imp = other.imp;
+        this.tp = other.tp;
+        this.dep.addAll(other.dep);
+        this.referencedTypes = other.referencedTypes;
+    }
+
+    // a class read back from a ProjectSnapshot, or collected by TypeCollector
+    GraphElement(String className, String classType, Set<Field> fields, Set<Method> listOfMethods, Set<String> inh,
+            Set<String> imp, Set<String> tp, Set<String> dep, Set<String> referencedTypes, StringTable strings) {
+        this.strings = strings;
+        this.className = strings.intern(className);
+        this.classType = strings.intern(classType);
+        this.fields = fields;
+        this.listOfMethods = listOfMethods;
+        this.inh = inh;
+        this.imp = imp;
+        this.tp = tp;
+        this.dep = dep;
+        this.referencedTypes = referencedTypes;
+    }
+
+    // the table the strings of the fields and methods are looked up in
+    public StringTable getStrings() {
+        return strings;
     }
 
     public String getClassType() {
-        return classType;
+        return strings.get(classType);
     }
 
     public String getClassName() {
-        return className;
+        return strings.get(className);
     }
 
     public Set<Field> getFields() {
@@ -71,4 +121,16 @@ public class GraphElement {
     public void addDep(String s) {
         this.dep.add(s);
     }
+
+    void clearDep() {
+        this.dep.clear();
+    }
+
+    Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    void setReferencedTypes(Set<String> referencedTypes) {
+        this.referencedTypes = referencedTypes;
+    }
 }
@@ -0,0 +1,104 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+    A java file of the uploaded project, either on disk or read into memory straight from the upload
+ */
+class JavaSource {
+    private String path;
+    private File file;
+    private byte[] content;
+    private String hash;
+
+    private JavaSource(String path, File file, byte[] content) {
+        this.path = path;
+        this.file = file;
+        this.content = content;
+    }
+
+    static JavaSource fromFile(File file) {
+        return new JavaSource(file.getPath(), file, null);
+    }
+
+    static JavaSource fromBytes(String path, byte[] content) {
+        return new JavaSource(path, null, content);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /*
+        SHA-256 of the file content, a file on disk is read into memory for it and parsed from there
+     */
+    String getHash() {
+        if (hash == null) {
+            hash = sha256(getContent());
+        }
+        return hash;
+    }
+
+    // size in bytes, a file on disk is not read for it
+    long getSize() {
+        return content != null ? content.length : file.length();
+    }
+
+    byte[] getContent() {
+        if (content == null) {
+            try {
+                content = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return content;
+    }
+
+    /*
+        The start of the content, at most maxBytes. A larger file on disk that was not read yet is only read
+        that far and not kept.
+     */
+    byte[] getHead(int maxBytes) {
+        if (content != null || file.length() <= maxBytes) {
+            return getContent();
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(maxBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    ParseResult<CompilationUnit> parse(JavaParser javaParser) throws FileNotFoundException {
+        if (content == null) {
+            return javaParser.parse(file);
+        }
+        return javaParser.parse(new ByteArrayInputStream(content));
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b: MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.SwitchEntry;
+import com.github.javaparser.ast.stmt.TryStmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+    The local variables of one method body with the part of the source each one is visible in: from its
+    declarator to the end of its block, or of the for, for-each, try, catch or lambda that declares it.
+    Built once per method, a lookup is a hash lookup and a binary search.
+    Java does not let a local be declared again while another local of that name is visible, so the ranges
+    of one name never overlap and are kept sorted by where they start. The bodies of local and anonymous
+    classes are left out, their members may reuse any name. Lambda parameters without a type and "var"
+    declarations are left out as well, there is no type to tell.
+ */
+class LocalVariableTable {
+    private Map<String, Scope[]> scopes;
+
+    private LocalVariableTable(Map<String, Scope[]> scopes) {
+        this.scopes = scopes;
+    }
+
+    static LocalVariableTable of(MethodDeclaration declaration) {
+        Map<String, List<Scope>> byName = new HashMap<String, List<Scope>>();
+        for (VariableDeclarator variable: declaration.findAll(VariableDeclarator.class)) {
+            if (variable.getParentNode().orElse(null) instanceof VariableDeclarationExpr && isOwnedBy(variable, declaration)) {
+                add(byName, variable.getNameAsString(), variable.getTypeAsString(), variable, getScope(variable.getParentNode().get()));
+            }
+        }
+        for (Parameter parameter: declaration.findAll(Parameter.class)) {
+            Node parent = parameter.getParentNode().orElse(null);
+            // the method's own parameters are looked up through Method.getParamName()
+            if ((parent instanceof LambdaExpr || parent instanceof CatchClause) && isOwnedBy(parameter, declaration)) {
+                add(byName, parameter.getNameAsString(), parameter.getTypeAsString(), parameter, parent);
+            }
+        }
+        Map<String, Scope[]> scopes = new HashMap<String, Scope[]>();
+        for (Map.Entry<String, List<Scope>> entry: byName.entrySet()) {
+            Scope[] sorted = entry.getValue().toArray(new Scope[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.start, b.start));
+            scopes.put(entry.getKey(), sorted);
+        }
+        return new LocalVariableTable(scopes);
+    }
+
+    /*
+        Declared type of the local variable name visible at site, null when there is none
+     */
+    String getType(String name, Node site) {
+        Scope[] named = scopes.get(name);
+        Optional<Position> begin = site.getBegin();
+        if (named == null || !begin.isPresent()) {
+            return null;
+        }
+        long position = pack(begin.get());
+        // the last scope starting at or before the site
+        int low = 0;
+        int high = named.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (named[middle].start <= position) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (found < 0 || named[found].end < position) {
+            return null;
+        }
+        return named[found].type;
+    }
+
+    // not declared inside a local or anonymous class of the method
+    private static boolean isOwnedBy(Node node, MethodDeclaration declaration) {
+        return node.findAncestor(BodyDeclaration.class).orElse(null) == declaration;
+    }
+
+    /*
+        The node a local declaration is visible in: the for, for-each or try that declares it in its header,
+        otherwise the enclosing block or switch entry
+     */
+    private static Node getScope(Node declaration) {
+        Node parent = declaration.getParentNode().orElse(null);
+        if (parent instanceof ForStmt || parent instanceof ForEachStmt || parent instanceof TryStmt) {
+            return parent;
+        }
+        while (parent != null && !(parent instanceof BlockStmt || parent instanceof SwitchEntry)) {
+            parent = parent.getParentNode().orElse(null);
+        }
+        return parent;
+    }
+
+    private static void add(Map<String, List<Scope>> byName, String name, String type, Node declared, Node scope) {
+        if (type.isEmpty() || type.equals("var") || scope == null || !declared.getBegin().isPresent() || !scope.getEnd().isPresent()) {
+            return;
+        }
+        byName.computeIfAbsent(name, k -> new ArrayList<Scope>())
+                .add(new Scope(pack(declared.getBegin().get()), pack(scope.getEnd().get()), type));
+    }
+
+    // line << 32 | column, ordered like the positions
+    private static long pack(Position position) {
+        return ((long) position.line << 32) | position.column;
+    }
+
+    private static class Scope {
+        private long start;
+        private long end;
+        private String type;
+
+        Scope(long start, long end, String type) {
+            this.start = start;
+            this.end = end;
+            this.type = type;
+        }
+    }
+}
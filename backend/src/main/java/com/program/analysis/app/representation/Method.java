@@ -1,84 +1,98 @@
 package com.program.analysis.app.representation;
 
-import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
-import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.stmt.Statement;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
+/*
+    The name, access, return type and parameters are IDs in the string table of the project, the parameters
+    as (type, name) pairs in the order they are declared. The getters are given that table.
+ */
 public class Method {
-    private String name;
-    private String access;
-    private Set<String> param;
-    private String returnType;
-    private String body;
-    private NodeList<Node> methodCall;
+    private static final int[] NO_PARAMS = new int[0];
+
+    private int name;
+    private int access;
+    private int returnType;
+    private int[] params;
+    // kept in a plain list, a NodeList would take the statements out of the syntax tree they belong to
+    private List<Node> methodCall;
     private Node allStatements;
+    private LocalVariableTable localVariables;
 
-    public Method(String name, String access, String returnType, String body, Set<MethodCallExpr> methodCall) {
-        this.name = name;
-        this.access = access;
-        this.returnType = returnType;
-        this.body = body;
-        this.methodCall = new NodeList<>();
-        this.param = new HashSet<String>();
-        this.methodCall = new NodeList<>();
-    }
-
-    public Method(MethodDeclaration declaration) {
-        if (declaration.getBody().equals(Optional.empty())) {
-            this.body = "";
-        } else {
-            this.body = declaration.getBody().toString();
-        }
-        this.param = new HashSet<String>();
-        this.returnType = declaration.getTypeAsString();
-        this.access = declaration.getAccessSpecifier().asString();
-        this.name = declaration.getNameAsString();
-        this.methodCall = new NodeList<>();
+    Method(MethodDeclaration declaration, StringTable strings) {
+        this.returnType = strings.intern(declaration.getTypeAsString());
+        this.access = strings.intern(declaration.getAccessSpecifier().asString());
+        this.name = strings.intern(declaration.getNameAsString());
+        this.methodCall = new ArrayList<Node>();
         NodeList<Parameter> param = declaration.getParameters();
-        if (param.size() != 0) {
-            for (Parameter p: param) {
-                this.param.add(p.getTypeAsString() + AnalysisConstants.PARAM_SEPARATOR + p.getNameAsString());
-            }
+        this.params = param.isEmpty() ? NO_PARAMS : new int[param.size() * 2];
+        for (int i = 0; i < param.size(); i++) {
+            params[2 * i] = strings.intern(param.get(i).getTypeAsString());
+            params[2 * i + 1] = strings.intern(param.get(i).getNameAsString());
+        }
+    }
+
+    /*
+        A method read back from a ProjectSnapshot, paramTypes and paramNames at the same index make a parameter
+     */
+    Method(String name, String access, String returnType, List<String> paramTypes, List<String> paramNames, StringTable strings) {
+        this.name = strings.intern(name);
+        this.access = strings.intern(access);
+        this.returnType = strings.intern(returnType);
+        this.params = paramTypes.isEmpty() ? NO_PARAMS : new int[paramTypes.size() * 2];
+        for (int i = 0; i < paramTypes.size(); i++) {
+            params[2 * i] = strings.intern(paramTypes.get(i));
+            params[2 * i + 1] = strings.intern(paramNames.get(i));
         }
     }
 
-    public void setParam(Set<String> param) {
-        this.param = param;
+    /*
+        Copy without statements in another table, for the copy of an unchanged class in a later upload
+     */
+    Method(Method other, StringTable from, StringTable strings) {
+        this.name = strings.intern(other.getName(from));
+        this.access = strings.intern(other.getAccess(from));
+        this.returnType = strings.intern(other.getReturnType(from));
+        this.params = other.params.length == 0 ? NO_PARAMS : new int[other.params.length];
+        for (int i = 0; i < other.params.length; i++) {
+            params[i] = strings.intern(from.get(other.params[i]));
+        }
     }
 
-    public String getName() {
-        return name;
+    public String getName(StringTable strings) {
+        return strings.get(name);
     }
 
-    public String getAccess() {
-        return access;
+    public String getAccess(StringTable strings) {
+        return strings.get(access);
     }
 
-    public Set<String> getParam() {
-        return param;
+    public int getParamCount() {
+        return params.length / 2;
     }
 
-    public String getReturnType() {
-        return returnType;
+    public String getParamType(int index, StringTable strings) {
+        return strings.get(params[2 * index]);
     }
 
-    public String getBody() {
-        return body;
+    public String getParamName(int index, StringTable strings) {
+        return strings.get(params[2 * index + 1]);
+    }
+
+    public String getReturnType(StringTable strings) {
+        return strings.get(returnType);
     }
 
     public void addStmt(Node stmt) {
         methodCall.add(stmt);
     }
 
-    public NodeList<Node> getMethodCall(){
+    public List<Node> getMethodCall(){
         return methodCall;
     }
 
@@ -89,4 +103,46 @@ public class Method {
     public Node getAllStatements() {
         return allStatements;
     }
+
+    void setLocalVariables(LocalVariableTable localVariables) {
+        this.localVariables = localVariables;
+    }
+
+    // the locals of the body with their scopes, null once the statements are released
+    LocalVariableTable getLocalVariables() {
+        return localVariables;
+    }
+
+    /*
+        Drop the references into the AST once the sequence diagram of the method is compiled
+     */
+    void releaseStatements() {
+        this.methodCall = null;
+        this.allStatements = null;
+        this.localVariables = null;
+    }
+
+    boolean hasStatements() {
+        return methodCall != null;
+    }
+
+    /*
+        Take the statements of the same method parsed again from the unchanged source
+     */
+    void restoreStatements(Method parsed) {
+        this.methodCall = parsed.methodCall;
+        this.allStatements = parsed.allStatements;
+        this.localVariables = parsed.localVariables;
+    }
+
+    /*
+        Name, parameters and return type, used to find the same method in a file parsed again
+     */
+    String getSignature(StringTable strings) {
+        List<String> params = new ArrayList<String>();
+        for (int i = 0; i < getParamCount(); i++) {
+            params.add(getParamType(i, strings) + " " + getParamName(i, strings));
+        }
+        return getAccess(strings) + " " + getReturnType(strings) + " " + getName(strings) + params;
+    }
 }
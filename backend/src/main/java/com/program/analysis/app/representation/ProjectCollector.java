@@ -1,2026 +1,837 @@
 package com.program.analysis.app.representation;
 
-import com.fasterxml.jackson.databind.util.JSONPObject;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.Node;
-import com.github.javaparser.ast.NodeList;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.EnumDeclaration;
-import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.expr.*;
-import com.github.javaparser.ast.stmt.*;
 import org.json.JSONArray;
-import org.json.JSONObject;
+
+import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipInputStream;
 
 public class ProjectCollector {
-    private static ProjectCollector instance = new ProjectCollector();
-    private Set<CompilationUnit> listOfUnits;
+    private static final Pattern TYPE_NAME = Pattern.compile("[\\p{L}_$][\\p{L}\\p{N}_$]*(\\s*\\.\\s*[\\p{L}_$][\\p{L}\\p{N}_$]*)*");
     private Set<GraphElement> listOfResults;
+    private volatile SymbolIndex symbolIndex = new SymbolIndex(Collections.<GraphElement>emptySet());
+    // shallow sequence diagram of every method, the ASTs are dropped once these are built
+    private volatile CompactSequences sequences = CompactSequences.empty();
+    // who calls whom, read from the sequences; with lazy method bodies only built when it is first asked for
+    private volatile CallGraph callGraph;
+    private int parseParallelism = 1;
+    private boolean memberDependencies = false;
+    private boolean lazyMethodBodies = false;
+    private boolean symbolResolution = false;
+    private long symbolResolutionTimeout = 5000;
+    // the symbol solver of the sequence compiles, only kept after the upload with lazy method bodies
+    private volatile TypeResolver typeResolver;
+    private SourceFilter sourceFilter = SourceFilter.defaults();
+    private AnalysisProgress progress;
+    private AnalysisMetrics metrics;
+    // the phase being timed for metrics, with the time and the allocated bytes it started at
+    private String timedPhase;
+    private long phaseStart;
+    private long phaseAllocated;
+    // the GraphElements of every parsed file by content hash, a later upload of the project reuses them
+    private Map<String, List<GraphElement>> elementsBySource = new HashMap<String, List<GraphElement>>();
+    // the names, types and access modifiers of the classes, every distinct one is stored once
+    private StringTable strings = new StringTable();
+    private int reusedFiles;
+    private int skippedFiles;
+    private int reusedSequences;
+    // only set while an upload that reuses an earlier one is analysed
+    private ProjectCollector baseProject;
+    private Map<GraphElement, JavaSource> reusedSources = new IdentityHashMap<GraphElement, JavaSource>();
+    private Set<GraphElement> restoredClasses = Collections.newSetFromMap(new IdentityHashMap<GraphElement, Boolean>());
+    private Set<String> affectedClasses = new HashSet<String>();
+    // with lazy method bodies the source of every class, and the sequences compiled so far by requested method
+    private Map<GraphElement, JavaSource> lazySources = new IdentityHashMap<GraphElement, JavaSource>();
+    private Map<String, CompactSequences> lazySequences = new ConcurrentHashMap<String, CompactSequences>();
+    private final Object lazyLock = new Object();
 
-    private ProjectCollector() {
+    /*
+        Every uploaded project is analysed by its own instance
+     */
+    public ProjectCollector() {
         this.listOfResults = new HashSet<GraphElement>();
-        this.listOfUnits = new HashSet<CompilationUnit>();
-    }
-
-    public static ProjectCollector getInstance() {
-        return instance;
     }
 
     public Set<GraphElement> getClasses() {
-        return this.listOfResults;
+        return Collections.unmodifiableSet(this.listOfResults);
     }
 
-    public void parseFiles(File [] files) throws FileNotFoundException, ProjectParseException {
-        clean();
-        parseJavaFiles(files);
-        setDependency();
+    /*
+        Number of worker threads used to parse java files, 1 (the default) parses on the calling thread
+     */
+    public void setParseParallelism(int parseParallelism) {
+        this.parseParallelism = Math.max(1, parseParallelism);
     }
 
-    private void clean() {
-        this.listOfUnits.clear();
-        this.listOfResults.clear();
+    public int getParseParallelism() {
+        return parseParallelism;
     }
 
     /*
-        This method traverse all java files in the directory recursively. And it stores the
-        results. Note: clear() should always be called before calling this function
+        Also count the parameter, return and local variable types of methods as dependencies, by default only
+        field types do
      */
-    private void parseJavaFiles(File [] files) throws FileNotFoundException, ProjectParseException {
-        JavaParser javaParser = new JavaParser();
-        for (File f: files) {
-            if (f.isDirectory() && !f.getName().contains("MACOSX")) {
-                parseJavaFiles(f.listFiles());
-            } else if (f.getName().endsWith(".java")) {
-                ParseResult<CompilationUnit> compilationUnit = javaParser.parse(f);
-                if (compilationUnit.getResult().equals(Optional.empty())) {
-                    throw new ProjectParseException("Failed to parse project, make sure there are java files in the project and in correct format");
-                }
-                CompilationUnit compileResult = compilationUnit.getResult().get();
-                this.listOfUnits.add(compileResult);
-                this.listOfResults.add(new GraphElement(compileResult));
-            }
-        }
+    public void setMemberDependencies(boolean memberDependencies) {
+        this.memberDependencies = memberDependencies;
+    }
+
+    public boolean getMemberDependencies() {
+        return memberDependencies;
     }
 
     /*
-    Extends and Implements will be kept anyway even though the targeted class is not in the project directory.
-    Normal dependency has to be check if the dependent class exists in the project directory, if not exists,
-    it will be ignored.
+        Only collect the class level facts (names, fields, method signatures, inheritance) on upload. The source
+        of every class is kept and a method body is analysed the first time its sequence diagram is requested,
+        together with the bodies of the methods it calls.
      */
-    private void setDependency() {
-        for (GraphElement g: listOfResults) {
-            Set<Field> listF = g.getFields();
-            for (Field f: listF) {
-                for (GraphElement gTemp: listOfResults) {
-                    if (f.getType().equals(gTemp.getClassName())) {
-                        g.addDep(gTemp.getClassName());
-                    }
-                }
-            }
-        }
+    public void setLazyMethodBodies(boolean lazyMethodBodies) {
+        this.lazyMethodBodies = lazyMethodBodies;
     }
 
-
-
-    public JSONArray getSeqDiagramInfo(String className, String methodName) {
-        JSONArray jarray = new JSONArray();
-        Set<GraphElement> classes = this.getClasses();
-        GraphElement ge = getTargetClass(classes, className);
-        if(ge==null){return jarray;}
-        Method m = getTargetMethod(ge.getListOfMethods(),methodName,null);
-        if(m==null){return jarray;}
-        for(Node node:m.getMethodCall()){
-            if(node instanceof MethodCallExpr){
-                JSONObject json = initSeqJSON(node,m,ge);
-                if(json!=null && json.has("sep")){
-                    JSONArray sep = (JSONArray) json.get("sep");
-                    while(sep.length()!=0){
-                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                            jarray.put(sep.remove(0));
-                        }
-                    }
-                }else{
-                    if(json!=null){
-                        if(checkJSONFullSize(json)){
-                            jarray.put(json);
-                        }
-                    }
-                }
-            }else{
-                JSONObject temp = initSeqJSON(node, m, ge);
-                if(temp!=null){
-                    if(temp.has("sep")){
-                        JSONArray sep = (JSONArray) temp.get("sep");
-                        while(sep.length()!=0){
-                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                jarray.put(sep.remove(0));
-                            }
-                        }
-                    }else if(temp.has("cond")){
-                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                        while(nextLevelCond.length()!=0){
-                            if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                jarray.put(nextLevelCond.remove(0));
-                            }
-                        }
-                        if(temp.has("stmt")){
-                            jarray.put(temp.get("stmt"));
-                        }
-                    }else{
-                        if(checkJSONFullSize(temp)){
-                            jarray.put(temp);
-                        }
-                    }
-                }
-            }
-        }
-        return jarray;
+    public boolean getLazyMethodBodies() {
+        return lazyMethodBodies;
     }
 
     /*
-    get the GraphElement object by name
+        Resolve the objects calls are made on with the javaparser symbol solver when the sequences are compiled,
+        instead of only matching their names against the parameters, locals and fields of the method's class.
+        It also finds inherited fields, fields of other objects and the types behind qualified names, at the
+        price of the solver's lookups. A project read back from a snapshot only matches names.
      */
-    private GraphElement getTargetClass(Set<GraphElement> set, String name){
-        for(GraphElement obj:set){
-            if(name!=null && name.equals(obj.getClassName())){
-                return obj;
-            }
-        }
-        return null;
+    public void setSymbolResolution(boolean symbolResolution) {
+        this.symbolResolution = symbolResolution;
+    }
+
+    public boolean getSymbolResolution() {
+        return symbolResolution;
     }
 
     /*
-    get the Method object by name inside of current class
+        Time in milliseconds one compile may spend in the symbol solver, the whole upload or with lazy method
+        bodies one requested method. After that its remaining calls fall back to name matching. 0 for no limit.
      */
-    private Method getTargetMethod(Set<Method> set, String name, GraphElement providedClass){
-        Method result = null;
-        for(Method obj:set){
-            if(name!=null && name.equals(obj.getName())){
-                result = obj;
-                break;
-            }
-        }
-        if (result == null && providedClass != null && providedClass.getInh().size() > 0) {
-            // check extended class for the method
-            Set<String> extnededClassName = providedClass.getInh();
-            GraphElement extendedClass = getTargetClass(this.getClasses(), extnededClassName.iterator().next());
-            return getTargetMethod(extendedClass.getListOfMethods(), name, extendedClass);
-        }
+    public void setSymbolResolutionTimeout(long symbolResolutionTimeout) {
+        this.symbolResolutionTimeout = Math.max(0, symbolResolutionTimeout);
+    }
 
-        return result;
+    public long getSymbolResolutionTimeout() {
+        return symbolResolutionTimeout;
     }
 
     /*
-    recursive method to retrieve all function calls from one block of statement/expression
+        Decides which java files are parsed, by default every file but package-info.java and module-info.java
      */
-    private JSONObject initSeqJSON(Node node, Method m, GraphElement ge){
-        JSONObject json = new JSONObject();
-        if(node instanceof MethodCallExpr){
-            int level = countCalls(node);
-            JSONArray temp ;
-            if(level==0){
-                temp = getJSONFuncCall((MethodCallExpr) node, m, ge);
-            }else{
-                temp = getJSONNestedFuncCall( node, m, ge, level);
-            }
-            if(temp!=null&&temp.length()!=0){
-                json.put("sep",temp);
-                return json;
-            }
-            return null;
-        }else if(node instanceof ForEachStmt){
-            return getJSONForEach(node,m,ge);
-        }else if(node instanceof ForStmt){
-            return getJSONFor(node,m,ge);
-        }else if(node instanceof IfStmt){
-            return getJSONIf(node,m,ge);
-        }else if(node instanceof WhileStmt){
-            return getJSONWhile(node,m,ge);
-        }else if(node instanceof SwitchStmt){
-            return getJSONSwitch(node,m,ge);
-        }else if(node instanceof VariableDeclarationExpr){
-            return getVarDeclaCall(node,m,ge);
-        }else if(node instanceof ThrowStmt){
-            return getThrowCall(node,m,ge);
-        }else if(node instanceof Expression){
-            if(node.getChildNodes()!=null && !node.getChildNodes().equals(Collections.emptyList())){
-                for(Node n: node.getChildNodes()){
-                    if(n instanceof MethodCallExpr || n instanceof Statement){
-                        return initSeqJSON(n,m,ge);
-                    }
-                }
-            }
-        }
-        //we can not support else
-        //return null indicates the errors like no such class in the project directory, no such method exist etc
-        return null;
+    public void setSourceFilter(SourceFilter sourceFilter) {
+        this.sourceFilter = sourceFilter == null ? SourceFilter.defaults() : sourceFilter;
+    }
+
+    // number of java files the source filter left out of the last parse
+    public int getSkippedFiles() {
+        return skippedFiles;
     }
 
     /*
-    recursive method look for initial object call
+        Told about the phases and parsed files of the following parses, null for none
      */
-    private String normalCall(Node m){
-        if(m instanceof MethodCallExpr){
-            if(((MethodCallExpr) m).getScope().equals(Optional.empty())){
-                return m.toString();
-            }
-            return normalCall(((MethodCallExpr) m).getScope().get());
-        }
-        return m.toString();
+    public void setProgress(AnalysisProgress progress) {
+        this.progress = progress;
     }
 
     /*
-    look if variable is from method parameters
-    if yes, return the callee class name
-    if no, look from 1. local variables; 2. name is the Class name;
+        Timings of the following parses and of the sequence diagrams expanded from them, null for none
      */
-    private String checkVarFromParam(String name, Method m, GraphElement ge){
-        if(name.contains("this.")){
-            name = name.substring(5,name.length());
+    public void setMetrics(AnalysisMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void reportPhase(String phase) {
+        finishPhase();
+        if (progress != null) {
+            progress.phase(phase);
         }
-        for(String par:m.getParam()){
-            String paramArr []= par.split(AnalysisConstants.PARAM_SEPARATOR);
-            if(paramArr[1].equals(name)){
-                return paramArr[0];
-            }
+        if (metrics != null) {
+            timedPhase = phase;
+            phaseStart = System.nanoTime();
+            phaseAllocated = AnalysisMetrics.currentThreadAllocatedBytes();
         }
-        //no case 1: check local variables
-        for(Field f:ge.getFields()){
-            if(f.getName().equals(name)){
-                //found in local variables
-                return f.getType();
-            }
+    }
+
+    private void finishPhase() {
+        if (metrics != null && timedPhase != null) {
+            long allocated = AnalysisMetrics.currentThreadAllocatedBytes();
+            metrics.phase(timedPhase, System.nanoTime() - phaseStart, phaseAllocated < 0 ? -1 : allocated - phaseAllocated);
         }
-        //case: local instance of other class
-        Node allstate = m.getAllStatements();
-        if(allstate!=null){
-            for(Node lines:allstate.getChildNodes()){
-                if(lines!=null && lines instanceof ExpressionStmt){
-                    ExpressionStmt exps = (ExpressionStmt)lines;
-                    if(exps.getExpression()!=null){
-                        Expression exp = exps.getExpression();
-                        if(exp instanceof VariableDeclarationExpr){
-                            for(Node nnn:exp.getChildNodes()){
-                                if(nnn!=null && nnn instanceof VariableDeclarator){
-                                    if (((VariableDeclarator) nnn).getNameAsString().equals(name)){
-                                        return ((VariableDeclarator) nnn).getTypeAsString();
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        timedPhase = null;
+    }
+
+    /*
+        A project read back from a ProjectSnapshot, it is already analysed
+     */
+    static ProjectCollector restore(Collection<GraphElement> classes, StringTable strings,
+            Map<String, List<GraphElement>> elementsBySource, CompactSequences sequences, boolean memberDependencies,
+            Map<GraphElement, JavaSource> lazySources) {
+        ProjectCollector project = new ProjectCollector();
+        project.strings = strings;
+        project.listOfResults.addAll(classes);
+        project.elementsBySource = elementsBySource;
+        project.memberDependencies = memberDependencies;
+        if (lazySources != null) {
+            project.lazyMethodBodies = true;
+            project.lazySources.putAll(lazySources);
         }
-        //no case 2: check from whole project
-        for(GraphElement g:this.listOfResults){
-            if(g.getClassName().equals(name)){
-                return g.getClassName();
-            }
+        project.symbolIndex = new SymbolIndex(project.listOfResults);
+        project.sequences = sequences;
+        if (lazySources == null) {
+            project.callGraph = CallGraph.build(sequences);
         }
-        //not exist in the current project, ignore
-        return null;
+        return project;
+    }
+
+    // the table of every class of the project
+    StringTable getStrings() {
+        return strings;
+    }
+
+    Map<String, List<GraphElement>> getElementsBySource() {
+        return elementsBySource;
+    }
+
+    CompactSequences getSequences() {
+        return sequences;
+    }
+
+    // source of a class of a project with lazy method bodies, null otherwise
+    JavaSource getLazySource(GraphElement ge) {
+        return lazySources.get(ge);
     }
 
     /*
-    this method is called only for normal function call(type is MethodCallExp)
-    check is the method self-recursive
+        An earlier upload of the same project. The next parse only parses the files whose content changed, the
+        classes of unchanged files are copied from it together with the sequence diagrams that do not involve
+        a changed class. It is only used by that parse.
      */
-    private boolean isRecursive(MethodCallExpr mc, Method m){
-        return mc.getNameAsString().equals(m.getName());
+    public void setBaseProject(ProjectCollector baseProject) {
+        this.baseProject = baseProject;
+    }
+
+    // number of files the last parse took from the base project instead of parsing them
+    public int getReusedFiles() {
+        return reusedFiles;
+    }
+
+    // number of method sequence diagrams the last parse copied from the base project
+    public int getReusedSequences() {
+        return reusedSequences;
+    }
+
+    public void parseFiles(File [] files) throws FileNotFoundException, ProjectParseException {
+        clean();
+        // walking the folders for the java files, like reading the entries of a zip stream
+        reportPhase(AnalysisProgress.READING);
+        parseJavaFiles(files);
+        analyse();
+    }
+
+    private void clean() {
+        this.listOfResults.clear();
+        this.elementsBySource = new HashMap<String, List<GraphElement>>();
+        this.strings = new StringTable();
+        this.reusedFiles = 0;
+        this.skippedFiles = 0;
+        this.timedPhase = null;
+        this.reusedSequences = 0;
+        this.symbolIndex = new SymbolIndex(Collections.<GraphElement>emptySet());
+        this.sequences = CompactSequences.empty();
+        this.callGraph = null;
+        this.typeResolver = null;
+        this.lazySources.clear();
+        this.lazySequences.clear();
     }
 
     /*
-    recursive helper method to retrieve the method name from Node
+        Project wide analysis once every file is parsed. The sequence diagrams are compiled while the ASTs are
+        still around, after that only the compact model is kept. With lazy method bodies no sequence diagram
+        is compiled here.
      */
-    private String helpGetCallerName(String variableName, Node node){
-        if(node instanceof MethodCallExpr){
-            if(((MethodCallExpr) node).getScope()==null|| ((MethodCallExpr) node).getScope().equals(Optional.empty())){
-                return null;
+    private void analyse() throws ProjectParseException {
+        try {
+            reportPhase(AnalysisProgress.DEPENDENCIES);
+            setDependency();
+            this.symbolIndex = new SymbolIndex(this.listOfResults);
+            if (!lazyMethodBodies) {
+                reportPhase(AnalysisProgress.SEQUENCES);
+                SequenceCompiler compiler = new SequenceCompiler(this);
+                // the solver looks at other files than the lookups of a sequence tell, nothing is copied with it
+                if (!reusedSources.isEmpty() && !symbolResolution && !baseProject.symbolResolution) {
+                    compiler.reuse(baseProject.sequences, reusedSources.keySet(), affectedClasses);
+                }
+                this.sequences = compiler.compile(this.listOfResults, parseParallelism);
+                this.reusedSequences = compiler.getCopied();
+                this.callGraph = CallGraph.build(this.sequences);
             }
-            if(((MethodCallExpr) node).getScope().get().toString().equals(variableName)){
-                return ((MethodCallExpr) node).getNameAsString();
+            releaseStatements(this.listOfResults);
+        } finally {
+            finishPhase();
+            if (!lazyMethodBodies) {
+                this.typeResolver = null;
             }
-            return helpGetCallerName(variableName,((MethodCallExpr) node).getScope().get());
+            // nothing of the earlier upload is kept alive by this one
+            this.baseProject = null;
+            this.reusedSources.clear();
+            this.restoredClasses.clear();
+            this.affectedClasses.clear();
         }
-        return null;
     }
 
-    /*
-    helper method for generating "param":{ "type":type, "name":name }
-     */
-    private JSONArray getParam(Method m){
-        JSONArray jarr = new JSONArray();
-        if(m==null){return null;}
-        for(String s:m.getParam()){
-            String tempoarr[] = s.split(AnalysisConstants.PARAM_SEPARATOR);
-            JSONObject json = new JSONObject();
-            json.put("type",tempoarr[0]);
-            json.put("name",tempoarr[1]);
-            jarr.put(json);
+    private void releaseStatements(Collection<GraphElement> classes) {
+        for (GraphElement ge: classes) {
+            for (Method m: ge.getListOfMethods()) {
+                m.releaseStatements();
+            }
         }
-        return jarr;
     }
 
     /*
-    helper method to count the number of times nested method being called
-    the nested count depends on the "." on the line statement
-    *e.g.
-    0 represents the case of foo();
-    1 represents the case of a.foo() or foo().boo()
+        Analyse a zipped project read straight from the given stream. Only the .java entries are read into
+        memory, nothing is written to disk.
      */
-    private int countCalls(Node m){
-        if(m instanceof MethodCallExpr){
-            if(((MethodCallExpr) m).getScope().equals(Optional.empty())){
-                return 0;
-            }
-            return countCalls(((MethodCallExpr) m).getScope().get())+1;
-        }
-        return 0;
+    public void parseZipStream(InputStream inputStream) throws IOException, ProjectParseException {
+        clean();
+        reportPhase(AnalysisProgress.READING);
+        parseSources(readZipSources(inputStream));
+        analyse();
     }
 
     /*
-    specific helper for case a.foo() and foo().boo() etc.
-    collect the json object after the first "." for nested call
+        This method traverse all java files in the directory recursively. And it stores the
+        results. Note: clear() should always be called before calling this function
      */
-    private JSONObject getNextLevelCallJSON(GraphElement currClass, GraphElement nextClass, Method currMethod, Method nextMethod, MethodCallExpr mc){
-        JSONObject json = new JSONObject();
-        json.put("type",(isRecursive(mc,currMethod))?"self":"none");
-        json.put("callerClass",currClass.getClassName());
-        json.put("calleeClass",nextClass.getClassName());
-        if(json.has("callerClass") && !json.has("calleeClass")){return null;}
-        json.put("callerName", nextMethod.getName());
-        json.put("returnType",(nextMethod.getReturnType().equals("void"))?"":nextMethod.getReturnType());
-        json.put("param", getParam(nextMethod));
-        if(nextMethod.getMethodCall().size()!=0){
-            JSONArray nextCallArr = new JSONArray();
-            for(Node newNode:nextMethod.getMethodCall()){
-                JSONObject temp = initSeqJSON(newNode,nextMethod,nextClass);
-                if(temp.has("sep")){
-                    JSONArray jj = (JSONArray) temp.get("sep");
-                    while(jj.length()!=0){
-                        nextCallArr.put(jj.remove(0));
-                    }
-                }else{
-                    if(temp.has("cond")){
-                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                        while(nextLevelCond.length()!=0){
-                            nextCallArr.put(nextLevelCond.remove(0));
-                        }
-                        if(temp.has("stmt")){
-                            nextCallArr.put(temp.get("stmt"));
-                        }
-                    }else{
-                        if(temp.has("sep")){
-                            JSONArray sep = (JSONArray) temp.get("sep");
-                            while(sep.length()!=0){
-                                nextCallArr.put(sep.remove(0));
-                            }
-                        }else{
-                            if(checkJSONFullSize(temp)){
-                                nextCallArr.put(temp);
-                            }
-                        }
-                    }
-                }
-            }
-            json.put("call",nextCallArr);
-        }else{
-            json.put("call",new JSONArray());
-        }
-
-        return json;
+    private void parseJavaFiles(File [] files) throws FileNotFoundException, ProjectParseException {
+        List<JavaSource> javaFiles = new ArrayList<JavaSource>();
+        collectJavaFiles(files, javaFiles);
+        parseSources(javaFiles);
     }
 
     /*
-    specific helper method for case of System.out.println() etc. which the callee class is not
-    part of the project directory but a valid function call
+        Parse the sources the source filter accepts whose content is not in the base project, the others get
+        copies of the base project's classes. Classes declared by new, changed or removed files are the affected classes, the
+        dependencies and sequence diagrams that look at them are computed again.
      */
-    private JSONArray traverseTreeSys(Node node,Method m, GraphElement ge){
-        JSONArray reverseArr = new JSONArray();
-        Node child = node;
-        while(child instanceof BinaryExpr || child instanceof MethodCallExpr){
-            if(child instanceof MethodCallExpr){
-                JSONObject temp= initSeqJSON(child,m,ge);
-                if(temp!=null){
-                    if(temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while (jj.length()!=0){
-                            if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                reverseArr.put(jj.remove(0));
-                            }
-                        }
-                    }else{
-                        if(checkJSONFullSize(temp)){
-                            reverseArr.put(temp);
-                        }
-                    }
-                }
-            }else if(child.getChildNodes().get(1)instanceof MethodCallExpr){
-                JSONObject temp= initSeqJSON(child.getChildNodes().get(1),m,ge);
-                if(temp!=null){
-                    if(temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while (jj.length()!=0){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }else{
-                        if(checkJSONFullSize(temp)){
-                            reverseArr.put(temp);
-                        }
-                    }
-                }
-            }else if(child.getChildNodes().get(0)instanceof MethodCallExpr){
-                JSONObject temp= initSeqJSON(child.getChildNodes().get(0),m,ge);
-                if(temp!=null){
-                    if(temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while (jj.length()!=0){
-                            if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                reverseArr.put(jj.remove(0));
-                            }
-                        }
-                    }else{
-                        if(checkJSONFullSize(temp)){
-                            reverseArr.put(temp);
-                        }
-                    }
+    private void parseSources(List<JavaSource> sources) throws FileNotFoundException, ProjectParseException {
+        sources = filterSources(sources);
+        if (symbolResolution) {
+            this.typeResolver = new TypeResolver(sources);
+        }
+        Map<String, List<GraphElement>> previous = getPreviousElements();
+        List<JavaSource> changed = new ArrayList<JavaSource>();
+        Set<String> hashes = new HashSet<String>();
+        for (JavaSource source: sources) {
+            String hash = getHash(source);
+            hashes.add(hash);
+            List<GraphElement> elements = previous.get(hash);
+            if (elements == null) {
+                changed.add(source);
+                continue;
+            }
+            List<GraphElement> copies = new ArrayList<GraphElement>();
+            for (GraphElement ge: elements) {
+                GraphElement copy = new GraphElement(ge, strings);
+                copies.add(copy);
+                this.reusedSources.put(copy, source);
+                this.listOfResults.add(copy);
+                if (lazyMethodBodies) {
+                    this.lazySources.put(copy, source);
                 }
             }
-            child=child.getChildNodes().get(0);
+            this.elementsBySource.putIfAbsent(hash, copies);
+            this.reusedFiles++;
         }
-        return reverseArr;
-    }
 
-    /*
-    specific helper for function calls in condition case
-     */
-    private JSONArray traverseTreeCond(Node node,Method m, GraphElement ge){
-        JSONArray reverseArr = new JSONArray();
-        for(Node child:node.getChildNodes()){
-            while(child instanceof BinaryExpr || child instanceof MethodCallExpr){
-                if(child instanceof MethodCallExpr){
-                    JSONObject temp= initSeqJSON(child,m,ge);
-                    if(temp!=null&&temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while(jj.length()!=0){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }
-                }else if(child.getChildNodes().get(1)instanceof MethodCallExpr){
-                    JSONObject temp= initSeqJSON(child.getChildNodes().get(1),m,ge);
-                    if(temp!=null&&temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while(jj.length()!=0){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }
-                }else if(child.getChildNodes().get(0)instanceof MethodCallExpr){
-                    JSONObject temp= initSeqJSON(child.getChildNodes().get(0),m,ge);
-                    if(temp!=null&&temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while(jj.length()!=0){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }
+        reportPhase(AnalysisProgress.PARSING);
+        long parseStart = System.nanoTime();
+        ParsedFiles parsedFiles = new ParsedFiles(sources.size() - changed.size(), sources.size());
+        List<CompilationUnit> units = (parseParallelism > 1 && changed.size() > 1)
+                ? parseInParallel(changed, parsedFiles) : parseSequentially(changed, parsedFiles);
+        List<List<GraphElement>> elements = buildGraphElements(units);
+        if (metrics != null) {
+            metrics.filesParsed(changed.size(), System.nanoTime() - parseStart);
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            for (GraphElement ge: elements.get(i)) {
+                this.listOfResults.add(ge);
+                this.affectedClasses.add(ge.getClassName());
+                if (lazyMethodBodies) {
+                    this.lazySources.put(ge, changed.get(i));
                 }
-                
-                child=child.getChildNodes().get(0);
             }
+            this.elementsBySource.putIfAbsent(changed.get(i).getHash(), elements.get(i));
         }
-        return reverseArr;
-    }
-
-    /*
-    retrieve all if condition function call
-     */
-    private JSONArray findAllIfConditions(Node node,Method m, GraphElement ge){
-        JSONArray reverseArr = new JSONArray();
-        for(Node child:node.getChildNodes()){
-            if(child instanceof BinaryExpr || child instanceof IfStmt){
-                JSONArray jarr = retrieveFuncCallinsideIfCond(child,m,ge);
-                JSONArray j = handleIfRecursion(jarr);
-                while(j.length()!=0){
-                    reverseArr.put(j.remove(0));
-                }
-            }else if(child instanceof MethodCallExpr){
-                JSONObject temp = initSeqJSON(child,m,ge);
-                if(temp!=null&&temp.has("sep")){
-                    JSONArray jj = (JSONArray) temp.get("sep");
-                    while (jj.length()!=0){
-                        if(checkJSONFullSize((JSONObject) jj.get(0))){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }
+        for (Map.Entry<String, List<GraphElement>> entry: previous.entrySet()) {
+            if (!hashes.contains(entry.getKey())) {
+                for (GraphElement ge: entry.getValue()) {
+                    this.affectedClasses.add(ge.getClassName());
                 }
             }
         }
-        return reverseArr;
     }
 
-    /*
-    helper of above method
-     */
-    private JSONArray retrieveFuncCallinsideIfCond(Node node, Method m, GraphElement ge){
-        JSONArray jarr = new JSONArray();
-        for(Node child:node.getChildNodes()){
-            if(child instanceof BinaryExpr || child instanceof MethodCallExpr){
-                if(child instanceof MethodCallExpr){
-                    if(initSeqJSON(child,m,ge)!=null){
-                        JSONObject temp = initSeqJSON(child,m,ge);
-                        if(temp!=null&&temp.has("sep")){
-                            JSONArray jj = (JSONArray) temp.get("sep");
-                            while (jj.length()!=0){
-                                if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                    jarr.put(jj.remove(0));
-                                }
-                            }
-                        }
-                    }
-                }else{
-                    for(Node methodNode:child.getChildNodes()){
-                        if(methodNode instanceof MethodCallExpr){
-                            if(initSeqJSON(methodNode,m,ge)!=null){
-                                JSONObject temp = initSeqJSON(methodNode,m,ge);
-                                if(temp!=null&&temp.has("sep")){
-                                    JSONArray jj = (JSONArray) temp.get("sep");
-                                    while (jj.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                            jarr.put(jj.remove(0));
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }else if(child instanceof IfStmt){
-                if(retrieveFuncCallinsideIfCond(child,m,ge)!=null){
-                    jarr.put(retrieveFuncCallinsideIfCond(child,m,ge));
-                }
-            }else if(child instanceof MethodCallExpr){
-                if(initSeqJSON(child,m,ge)!=null){
-                    JSONObject temp = initSeqJSON(child,m,ge);
-                    if(temp.has("sep")){
-                        JSONArray jj = (JSONArray) temp.get("sep");
-                        while (jj.length()!=0){
-                            if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                jarr.put(jj.remove(0));
-                            }
-                        }
-                    }
-                }
-            }
+    // a compile's lookups in the symbol solver, null without symbol resolution
+    TypeResolver.Request startResolution() {
+        TypeResolver resolver = typeResolver;
+        return resolver == null ? null : resolver.startRequest(symbolResolutionTimeout);
+    }
+
+    void finishResolution(TypeResolver.Request resolution) {
+        if (resolution == null) {
+            return;
+        }
+        resolution.finish();
+        if (metrics != null) {
+            metrics.typesResolved(resolution.getResolved(), resolution.getUnresolved(), resolution.getTimedOut());
         }
-        return jarr;
     }
 
-    private JSONArray handleIfRecursion(JSONArray jarr){
-        JSONArray collection = new JSONArray();
-        while(jarr.length()!=0){
-            if(jarr.get(0)instanceof JSONObject){
-                collection.put(jarr.remove(0));
-            }else{
-                JSONArray j = (JSONArray) jarr.remove(0);
-                j=handleIfRecursion(j);
-                while(j.length()!=0){
-                    collection.put(j.remove(0));
+    private List<JavaSource> filterSources(List<JavaSource> sources) throws ProjectParseException {
+        List<JavaSource> accepted = new ArrayList<JavaSource>();
+        for (JavaSource source: sources) {
+            try {
+                if (sourceFilter.accept(source)) {
+                    accepted.add(source);
+                } else {
+                    this.skippedFiles++;
                 }
+            } catch (UncheckedIOException e) {
+                throw new ProjectParseException("Failed to read " + source.getPath() + ": " + e.getCause().getMessage());
             }
         }
-        return collection;
+        return accepted;
     }
 
-    /*
-    retrieve all function calls for if or else statement, boolean then indicates which statement we want
-    then->true: retrieve then statement
-    then->false: retrieve else statement
-     */
-    private JSONArray getThenAndElseStmtCondFunc(Node node, Method m, GraphElement ge, boolean then){
-        //condition has function calls
-        List<Node> list = null;
-        if(then){
-            list = ((IfStmt) node).getThenStmt().getChildNodes();
-        }else{
-            if(((IfStmt)node).getElseStmt()!=null&& !((IfStmt)node).getElseStmt().equals(Optional.empty())){
-                list = ((IfStmt) node).getElseStmt().get().getChildNodes();
-            }else{
-                return new JSONArray();
-            }
+    // the classes of the base project by content hash, none if it was analysed with other settings
+    private Map<String, List<GraphElement>> getPreviousElements() {
+        if (baseProject == null || baseProject.memberDependencies != memberDependencies) {
+            return Collections.emptyMap();
         }
-        JSONArray jarr = new JSONArray();
-        for(Node n:list){
-            if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                    || n instanceof ForEachStmt || n instanceof  ForStmt || n instanceof ThrowStmt){
-                JSONObject temp = initSeqJSON(n,m,ge);
-                if(temp!=null){
-                    if(temp.has("cond")){
-                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                        while(nextLevelCond.length()!=0){
-                            jarr.put(nextLevelCond.remove(0));
-                        }
-                        if(temp.has("stmt")){
-                            jarr.put(temp.get("stmt"));
-                        }
-                    }else{
-                        if(temp.has("sep")){
-                            JSONArray sep = (JSONArray) temp.get("sep");
-                            while(sep.length()!=0){
-                                jarr.put(sep.remove(0));
-                            }
-                        }else{
-                            jarr.put(temp);
-                        }
-                    }
-                }
-            }else{
-                if(!n.getChildNodes().equals(Collections.emptyList())){
-                    JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                jarr.put(nextLevelCond.remove(0));
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    jarr.put(sep.remove(0));
-                                }
-                            }else{
-                                jarr.put(temp);
-                            }
-                        }
-                    }
-                }
-            }
+        return baseProject.elementsBySource;
+    }
+
+    private String getHash(JavaSource source) throws ProjectParseException {
+        try {
+            return source.getHash();
+        } catch (UncheckedIOException e) {
+            throw new ProjectParseException("Failed to read " + source.getPath() + ": " + e.getCause().getMessage());
         }
-        return jarr;
     }
 
     /*
-    helper method to handle foreach statement, return json object of the whole foreach statement block
+        Parse the source of a copied class (or of any class with lazy method bodies) again and give its methods
+        their statements back, for sequence diagrams that have to be built. Methods that can not be matched
+        stay without statements and their sequence diagrams fail. The class is found again by its name, when a
+        file declares two (local) classes of one name the first one's methods are taken.
      */
-    private JSONObject getJSONForEach(Node node, Method m,GraphElement ge){
-        JSONObject json = new JSONObject();
-        ForEachStmt fe = (ForEachStmt)node;
-        JSONArray cond = checkIterable(fe,m,ge);
-        if(cond.length()!=0){
-            //function calls happened inside of foreach condition
-            JSONArray condCall = new JSONArray();
-            while(cond.length()!=0){
-                condCall.put(cond.remove(0));
-            }
-            json.put("cond",condCall);
-            JSONObject nj = new JSONObject();
-            nj.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((ForEachStmt) node).getBody().getChildNodes()){
-                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                        || n instanceof ForEachStmt || n instanceof  ForStmt){
-                    JSONObject temp = initSeqJSON(n,m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }else {
-                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
-                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        jarr.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    jarr.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            if(jarr.length()!=0){
-                nj.put("call",jarr);
-                json.put("stmt",nj);
-                return json;
-            }else{
-                return json;
-            }
-        }else{
-            json.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((ForEachStmt) node).getBody().getChildNodes()){
-                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                        || n instanceof ForEachStmt || n instanceof  ForStmt){
-                    JSONObject temp = initSeqJSON(n,m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }else{
-                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
-                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        jarr.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    jarr.put(temp.get("stmt"));
-                                }
-                            }else {
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }
+    void restoreStatements(GraphElement ge) {
+        JavaSource source = reusedSources.containsKey(ge) ? reusedSources.get(ge) : lazySources.get(ge);
+        if (source == null || !restoredClasses.add(ge)) {
+            return;
+        }
+        List<GraphElement> parsed;
+        try {
+            parsed = GraphElement.of(parseJavaFile(new JavaParser(), source));
+        } catch (FileNotFoundException | ProjectParseException e) {
+            return;
+        }
+        Map<String, Method> methods = new HashMap<String, Method>();
+        for (GraphElement parsedElement: parsed) {
+            if (parsedElement.getClassName().equals(ge.getClassName())) {
+                for (Method m: parsedElement.getListOfMethods()) {
+                    methods.putIfAbsent(m.getSignature(parsedElement.getStrings()), m);
                 }
             }
-            if(jarr.length()!=0){
-                json.put("call",jarr);
-                return json;
-            }else{
-                return json;
+        }
+        for (Method m: ge.getListOfMethods()) {
+            Method parsedMethod = methods.get(m.getSignature(ge.getStrings()));
+            if (parsedMethod != null) {
+                m.restoreStatements(parsedMethod);
             }
         }
     }
 
-    /*
-    helper method to handle while statement, return json object of the whole while statement block
-     */
-    private JSONObject getJSONWhile(Node node, Method m, GraphElement ge){
-        JSONObject json = new JSONObject();
-        WhileStmt fe = (WhileStmt) node;
-        JSONArray cond = traverseTreeCond(fe,m,ge);
-        if(cond.length()!=0){
-            //function calls happened inside of for condition
-            JSONArray condCall = new JSONArray();
-            while(cond.length()!=0){
-                condCall.put(cond.remove(0));
-            }
-            json.put("cond",condCall);
-            JSONObject nj = new JSONObject();
-            nj.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((WhileStmt) node).getBody().getChildNodes()){
-                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                        || n instanceof ForEachStmt || n instanceof  ForStmt){
-                    JSONObject temp = initSeqJSON(n,m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }else{
-                    if(!n.getChildNodes().equals(Collections.emptyList())){
-                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                                if(temp.has("stmt")){
-                                    jarr.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            if(jarr.length()!=0){
-                nj.put("call",jarr);
-                json.put("stmt", nj);
-                return json;
-            }else{
-                return json;
-            }
-        }else{
-            json.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((WhileStmt) node).getBody().getChildNodes()){
-                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                        || n instanceof ForEachStmt || n instanceof  ForStmt){
-                    JSONObject temp = initSeqJSON(n,m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }else{
-                    if(!n.getChildNodes().equals(Collections.emptyList())){
-                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        jarr.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    jarr.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(json)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            if(jarr.length()!=0){
-                json.put("call",jarr);
-                return json;
-            }else{
-                return json;
+    private void collectJavaFiles(File [] files, List<JavaSource> javaFiles) {
+        for (File f: files) {
+            if (f.isDirectory() && !f.getName().contains("MACOSX")) {
+                collectJavaFiles(f.listFiles(), javaFiles);
+            } else if (f.getName().endsWith(".java")) {
+                javaFiles.add(JavaSource.fromFile(f));
             }
         }
     }
 
     /*
-    helper method to handle if statement, return json object of the whole if statement block
-    In sequence diagram, if statement with no else case is considered as "opt"; if statement
-    with else case or multiple else if statement considered as "alt"
+        Read the .java entries of a zip stream, skipping everything else (and the __MACOSX folders) without
+        reading it into memory
      */
-    private JSONObject getJSONIf(Node node, Method m, GraphElement ge){
-        JSONObject json  = new JSONObject();
-        IfStmt fe = (IfStmt) node;
-        JSONArray cond = findAllIfConditions(fe,m,ge);
-        if(cond.length()!=0){
-            //function calls happened inside of if condition
-            JSONArray condCall = new JSONArray();
-            while(cond.length()!=0){
-                condCall.put(cond.remove(0));
+    private List<JavaSource> readZipSources(InputStream inputStream) throws IOException {
+        List<JavaSource> sources = new ArrayList<JavaSource>();
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            if (!entry.isDirectory() && isJavaEntry(entry.getName())) {
+                sources.add(JavaSource.fromBytes(entry.getName(), IOUtils.toByteArray(zipInputStream)));
             }
-            json.put("cond",condCall);
-            JSONObject nj = new JSONObject();
-            String type = (((IfStmt) node).getElseStmt().equals(Optional.empty()))?"opt":"alt";
-            nj.put("type", type);
-            if(type.equals("opt")){
-                JSONArray outsider = new JSONArray();
-                JSONArray jarr = new JSONArray();
-                for(Node n:((IfStmt) node).getThenStmt().getChildNodes()){
-                    if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                            || n instanceof ForEachStmt || n instanceof  ForStmt){
-                        JSONObject temp = initSeqJSON(n,m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        jarr.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    JSONArray arr = (JSONArray) temp.get("stmt");
-                                    if (arr.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) arr.get(0))){
-                                            jarr.put(arr.remove(0));
-                                        }
-                                    }
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }else{
-                        if(!n.getChildNodes().equals(Collections.emptyList())){
-                            JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                            if(temp!=null){
-                                if(temp.has("cond")){
-                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                    while(nextLevelCond.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                            jarr.put(nextLevelCond.remove(0));
-                                        }
-                                    }
-                                    if(temp.has("stmt")){
-                                        JSONArray arr = (JSONArray) temp.get("stmt");
-                                        if(arr.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) arr.get(0))){
-                                                jarr.put(arr.remove(0));
-                                            }
-                                        }
-                                    }
-                                }else{
-                                    if(temp.has("sep")){
-                                        JSONArray sep = (JSONArray) temp.get("sep");
-                                        while(sep.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                jarr.put(sep.remove(0));
-                                            }
-                                        }
-                                    }else{
-                                        if(checkJSONFullSize(temp)){
-                                            jarr.put(temp);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-                if(jarr.length()!=0){
-                    outsider.put(jarr);
-                    nj.put("call",outsider);
-                    json.put("stmt",nj);
-                    return json;
-                }else{
-                    return json;
-                }
-            }else{
-                //case alt
-                JSONArray outsider = new JSONArray();
-                while (!((IfStmt) node).getElseStmt().equals(Optional.empty()) &&((IfStmt) node).getElseStmt().get() instanceof IfStmt){
-                    JSONArray jarr = getThenAndElseStmtCondFunc(node,m,ge,true);
-                    if(jarr.length()!=0){
-                        outsider.put(jarr);
-                    }
-                    node = ((IfStmt) node).getElseStmt().get();
-                }
-                //the bottom level then and else case need to retrieve
-                JSONArray jarr1 = getThenAndElseStmtCondFunc(node,m,ge,true);
-                JSONArray jarr2 = getThenAndElseStmtCondFunc(node,m,ge,false);
-                if(jarr1.length()!=0){
-                    outsider.put(jarr1);
-                }
-                if(jarr2.length()!=0){
-                    outsider.put(jarr2);
-                }
-                if(outsider.length()!=0){
-                    nj.put("call",outsider);
-                    json.put("stmt",nj);
-                    return json;
-                }
-                return json;
-            }
-        }else{
-            String type = (((IfStmt) node).getElseStmt().equals(Optional.empty()))?"opt":"alt";
-            json.put("type", type);
-            if(type.equals("opt")){
-                JSONArray outsider = new JSONArray();
-                JSONArray jarr = new JSONArray();
-                for(Node n:((IfStmt) node).getThenStmt().getChildNodes()){
-                    if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                            || n instanceof ForEachStmt || n instanceof  ForStmt){
-                        JSONObject temp = initSeqJSON(n,m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        jarr.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    JSONArray arr = (JSONArray) temp.get("stmt");
-                                    if(arr.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) arr.get(0))){
-                                            jarr.put(arr.remove(0));
-                                        }
-                                    }
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject)sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }else{
-                        if(!n.getChildNodes().equals(Collections.emptyList())){
-                            JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                            if(temp!=null){
-                                if(temp.has("cond")){
-                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                    while(nextLevelCond.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                            jarr.put(nextLevelCond.remove(0));
-                                        }
-                                    }
-                                    if(temp.has("stmt")){
-                                        JSONArray arr = (JSONArray) temp.get("stmt");
-                                        if(arr.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) arr.get(0))){
-                                                jarr.put(arr.remove(0));
-                                            }
-                                        }
-                                    }
-                                }else{
-                                    if(temp.has("sep")){
-                                        JSONArray sep = (JSONArray) temp.get("sep");
-                                        while(sep.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                jarr.put(sep.remove(0));
-                                            }
-                                        }
-                                    }else{
-                                        if(checkJSONFullSize(temp)){
-                                            jarr.put(temp);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-                if(jarr.length()!=0){
-                    outsider.put(jarr);
-                    json.put("call",outsider);
-                    return json;
-                }else{
-                    return json;
-                }
-            }else{
-                //case alt
-                JSONArray outsider = new JSONArray();
-                while (!((IfStmt) node).getElseStmt().equals(Optional.empty()) &&((IfStmt) node).getElseStmt().get() instanceof IfStmt){
-                    JSONArray jarr = getThenAndElseStmtCondFunc(node,m,ge,true);
-                    if(jarr.length()!=0){
-                        if(checkJSONFullSize((JSONObject) outsider.get(0))){
-                            outsider.put(jarr);
-                        }
-                    }
-                    node = ((IfStmt) node).getElseStmt().get();
-                }
-                //the bottom level then and else case need to retrieve
-                JSONArray jarr1 = getThenAndElseStmtCondFunc(node,m,ge,true);
-                JSONArray jarr2 = getThenAndElseStmtCondFunc(node,m,ge,false);
-                if(jarr1.length()!=0){
-                    outsider.put(jarr1);
-                }
-                if(jarr2.length()!=0){
-                    outsider.put(jarr2);
-                }
-                if(outsider.length()!=0){
-                    json.put("call",outsider);
-                    return json;
-                }
-                return json;
+            zipInputStream.closeEntry();
+        }
+        return sources;
+    }
+
+    private boolean isJavaEntry(String entryName) {
+        if (!entryName.endsWith(".java")) {
+            return false;
+        }
+        String[] segments = entryName.split("/");
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (segments[i].contains("MACOSX")) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private List<CompilationUnit> parseSequentially(List<JavaSource> sources, ParsedFiles parsedFiles) throws FileNotFoundException, ProjectParseException {
+        JavaParser javaParser = new JavaParser();
+        List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+        for (JavaSource source: sources) {
+            units.add(parseJavaFile(javaParser, source));
+            parsedFiles.increment();
+        }
+        return units;
     }
 
     /*
-    helper method to handle for statement, return json object of the whole for statement block
+        Parse the files on a fixed size pool, every worker thread owns its own JavaParser since
+        the parser is not thread safe. Results are collected in the same order as sources so the
+        outcome is identical to the sequential path.
      */
-    private JSONObject getJSONFor(Node node, Method m, GraphElement ge){
-        JSONObject json = new JSONObject();
-        ForStmt fe = (ForStmt) node;
-        JSONArray cond = traverseTreeCond(fe,m,ge);
-        if(cond.length()!=0){
-            //function calls happened inside of for condition
-            JSONArray condCall = new JSONArray();
-            while(cond.length()!=0){
-                condCall.put(cond.remove(0));
+    private List<CompilationUnit> parseInParallel(List<JavaSource> sources, ParsedFiles parsedFiles) throws FileNotFoundException, ProjectParseException {
+        ExecutorService pool = AnalysisThreads.newFixedThreadPool(Math.min(parseParallelism, sources.size()));
+        ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(JavaParser::new);
+        try {
+            List<Future<CompilationUnit>> futures = new ArrayList<Future<CompilationUnit>>();
+            for (JavaSource source: sources) {
+                futures.add(pool.submit(() -> {
+                    CompilationUnit unit = parseJavaFile(parsers.get(), source);
+                    parsedFiles.increment();
+                    return unit;
+                }));
             }
-            json.put("cond",condCall);
-            JSONObject nj = new JSONObject();
-            nj.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((ForStmt) node).getBody().getChildNodes()){
-                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
-                        || n instanceof ForEachStmt || n instanceof  ForStmt){
-                    JSONObject temp = initSeqJSON(n,m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                jarr.put(nextLevelCond.remove(0));
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }else{
-                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
-                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    jarr.put(nextLevelCond.remove(0));
-                                }
-                                if(temp.has("stmt")){
-                                    jarr.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            jarr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        jarr.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            if(jarr.length()!=0){
-                nj.put("call",jarr);
-                json.put("stmt",nj);
-                return json;
-            }else{
-                return json;
-            }
-        }else{
-            json.put("type","loop");
-            JSONArray jarr = new JSONArray();
-            for(Node n:((ForStmt) node).getBody().getChildNodes()){
-                if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
-                    JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
-                    if(temp!=null){
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                jarr.put(nextLevelCond.remove(0));
-                            }
-                            if(temp.has("stmt")){
-                                jarr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(temp.has("sep")){
-                                JSONArray sep = (JSONArray) temp.get("sep");
-                                while(sep.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                        jarr.put(sep.remove(0));
-                                    }
-                                }
-                            }else{
-                                if(checkJSONFullSize(temp)){
-                                    jarr.put(temp);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            if(jarr.length()!=0){
-                json.put("call",jarr);
-                return json;
-            }else{
-                return null;
+            List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+            for (Future<CompilationUnit> future: futures) {
+                units.add(awaitResult(future));
             }
+            return units;
+        } finally {
+            pool.shutdownNow();
         }
     }
 
     /*
-    helper method to handle switch statement, return json object of the whole switch statement block
+        Build the GraphElements of the types of every parsed unit, concurrently when parallel parsing is enabled
      */
-    private JSONObject getJSONSwitch(Node node, Method m, GraphElement ge){
-        JSONObject json = new JSONObject();
-        SwitchStmt fe = (SwitchStmt) node;
-        JSONArray cond = traverseTreeSwitch(fe,m,ge);
-        if(cond.length()!=0){
-            //function calls happened inside of for condition
-            JSONArray condCall = new JSONArray();
-            while(cond.length()!=0){
-                condCall.put(cond.remove(0));
-            }
-            json.put("cond",condCall);
-            JSONObject nj =new JSONObject();
-            nj.put("type", "alt");
-            JSONArray jarr = new JSONArray();
-            for(SwitchEntry n:((SwitchStmt) node).getEntries()){
-                JSONArray insider= new JSONArray();
-                for(Statement s:n.getStatements()){
-                    if(s instanceof IfStmt || s instanceof SwitchStmt || s instanceof WhileStmt
-                            || s instanceof ForEachStmt || s instanceof  ForStmt){
-                        JSONObject temp = initSeqJSON(s,m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    insider.put(nextLevelCond.remove(0));
-                                }
-                                if(temp.has("stmt")){
-                                    insider.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            insider.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        insider.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }else{
-                        if(!s.getChildNodes().equals(Collections.emptyList())){
-                            for(Node child:s.getChildNodes()){
-                                JSONObject temp = initSeqJSON(child,m,ge);
-                                if(temp!=null){
-                                    if(temp.has("cond")){
-                                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                        while(nextLevelCond.length()!=0){
-                                            insider.put(nextLevelCond.remove(0));
-                                        }
-                                        if(temp.has("stmt")){
-                                            insider.put(temp.get("stmt"));
-                                        }
-                                    }else{
-                                        if(temp.has("sep")){
-                                            JSONArray sep = (JSONArray) temp.get("sep");
-                                            while(sep.length()!=0){
-                                                if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                    insider.put(sep.remove(0));
-                                                }
-                                            }
-                                        }else{
-                                            if(checkJSONFullSize(temp)){
-                                                insider.put(temp);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-                if(insider.length()!=0){
-                    jarr.put(insider);
-                }
-            }
-            if(jarr.length()!=0){
-                nj.put("call",jarr);
-                json.put("stmt",nj);
-                return json;
-            }else{
-                return json;
+    private List<List<GraphElement>> buildGraphElements(List<CompilationUnit> units) throws FileNotFoundException, ProjectParseException {
+        List<List<GraphElement>> elements = new ArrayList<List<GraphElement>>();
+        boolean methodStatements = !lazyMethodBodies;
+        if (parseParallelism <= 1 || units.size() <= 1) {
+            for (CompilationUnit unit: units) {
+                elements.add(GraphElement.of(unit, methodStatements, strings));
             }
-        }else {
-            json.put("type", "alt");
-            JSONArray jarr = new JSONArray();
-            for(SwitchEntry n:((SwitchStmt) node).getEntries()){
-                JSONArray insider= new JSONArray();
-                for(Statement s:n.getStatements()){
-                    JSONObject temp;
-                    if(s instanceof IfStmt || s instanceof SwitchStmt || s instanceof WhileStmt
-                            || s instanceof ForEachStmt || s instanceof  ForStmt){
-                        temp = initSeqJSON(s,m,ge);
-                        if(temp!=null){
-                            if(temp.has("cond")){
-                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                while(nextLevelCond.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                        insider.put(nextLevelCond.remove(0));
-                                    }
-                                }
-                                if(temp.has("stmt")){
-                                    insider.put(temp.get("stmt"));
-                                }
-                            }else{
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            insider.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(checkJSONFullSize(temp)){
-                                        insider.put(temp);
-                                    }
-                                }
-                            }
-                        }
-                    }else {
-                        for(Node child:s.getChildNodes()){
-                            temp = initSeqJSON(child,m,ge);
-                            if(temp!=null){
-                                if(temp.has("cond")){
-                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                    while(nextLevelCond.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                            insider.put(nextLevelCond.remove(0));
-                                        }
-                                    }
-                                    if(temp.has("stmt")){
-                                        insider.put(temp.get("stmt"));
-                                    }
-                                }else{
-                                    if(temp.has("sep")){
-                                        JSONArray sep = (JSONArray) temp.get("sep");
-                                        while(sep.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                insider.put(sep.remove(0));
-                                            }
-                                        }
-                                    }else{
-                                        if(checkJSONFullSize(temp)){
-                                            insider.put(temp);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-
-                    }
-
-                }
-                if(insider.length()!=0){
-                    jarr.put(insider);
-                }
+            return elements;
+        }
+        ExecutorService pool = AnalysisThreads.newFixedThreadPool(Math.min(parseParallelism, units.size()));
+        try {
+            List<Future<List<GraphElement>>> futures = new ArrayList<Future<List<GraphElement>>>();
+            for (CompilationUnit unit: units) {
+                futures.add(pool.submit(() -> GraphElement.of(unit, methodStatements, strings)));
             }
-            if(jarr.length()!=0){
-                json.put("call",jarr);
-                return json;
-            }else{
-                return null;
+            for (Future<List<GraphElement>> future: futures) {
+                elements.add(awaitResult(future));
             }
+            return elements;
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    /*
-    helper method to handle normal function call statement, return json object of the whole foreach statement block
-     */
-    private JSONArray getJSONFuncCall(MethodCallExpr mc,Method m,GraphElement ge){
-        JSONArray jarr = new JSONArray();
-        JSONObject json = new JSONObject();
-        for (Node n:((MethodCallExpr)mc).getChildNodes()){
-            if((n instanceof MethodCallExpr|| n instanceof IfStmt) && moreThanOneMethodCallExp(mc, (MethodCallExpr) n)){
-                JSONObject tt = initSeqJSON(n,m,ge);
-                if(tt!=null&&tt.has("sep")){
-                    JSONArray tj = (JSONArray) tt.get("sep");
-                    while(tj.length()!=0){
-                        if(checkJSONFullSize((JSONObject) tj.get(0))){
-                            jarr.put(tj.remove(0));
-                        }
-                    }
-                }
-            }
+    private CompilationUnit parseJavaFile(JavaParser javaParser, JavaSource source) throws FileNotFoundException, ProjectParseException {
+        long start = System.nanoTime();
+        ParseResult<CompilationUnit> compilationUnit = source.parse(javaParser);
+        if (metrics != null) {
+            metrics.fileParsed(System.nanoTime() - start);
         }
-        if(isRecursive(mc,m)){
-            //case recursive
-            json.put("type","self");
-            json.put("callerClass",ge.getClassName());
-            json.put("calleeClass",ge.getClassName());
-            json.put("callerName",m.getName());
-            json.put("returnType",(m.getReturnType().equals("void"))?"":m.getReturnType());
-            json.put("param",getParam(m));
-            json.put("call",new JSONArray());
-            jarr.put(json);
-            return jarr;
+        if (compilationUnit.getResult().equals(Optional.empty())) {
+            throw new ProjectParseException("Failed to parse project, make sure there are java files in the project and in correct format");
         }
-        json.put("type","none");
-        json.put("callerClass",ge.getClassName());
-        String variableName = normalCall(mc);
-        String calleeClass = checkVarFromParam(variableName,m,ge);
-        if(calleeClass==null){
-            //case local normal method call: foo()
-            String potentialMethodName = mc.getNameAsString();//possible method name
-            for(Method mt:ge.getListOfMethods()){
-                if(potentialMethodName.equals(mt.getName())){
-                    json.put("calleeClass",ge.getClassName());
-                    json.put("callerName", mt.getName());
-                    json.put("returnType",(mt.getReturnType().equals("void"))?"":mt.getReturnType());
-                    json.put("param",getParam(mt));
-                    if(mt.getMethodCall().size()!=0){
-                        //inside the method, it will call and redirect us to other classes/methodCall
-                        JSONArray nextCallArr = new JSONArray();
-                        for(Node newNode:mt.getMethodCall()){
-                            JSONObject temp = initSeqJSON(newNode,mt,ge);
-                            if(temp!=null){
-                                if(temp.has("sep")){
-                                    JSONArray sep = (JSONArray) temp.get("sep");
-                                    while(sep.length()!=0){
-                                        if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                            nextCallArr.put(sep.remove(0));
-                                        }
-                                    }
-                                }else{
-                                    if(temp.has("cond")){
-                                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                        while(nextLevelCond.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) nextLevelCond.get(0))){
-                                                nextCallArr.put(nextLevelCond.remove(0));
-                                            }
-                                        }
-                                        if(temp.has("stmt")){
-                                            nextCallArr.put(temp.get("stmt"));
-                                        }
-                                    }else{
-                                        if(temp.has("sep")){
-                                            JSONArray sep = (JSONArray) temp.get("sep");
-                                            while(sep.length()!=0){
-                                                if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                    nextCallArr.put(sep.remove(0));
-                                                }
-                                            }
-                                        }else{
-                                            if(checkJSONFullSize(temp)){
-                                                nextCallArr.put(temp);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        json.put("call",nextCallArr);
-                    }else{
-                        json.put("call",new JSONArray());
-                    }
-                    if(checkJSONFullSize(json)){
-                        jarr.put(json);
-                    }
-                    return jarr;
-                }
-            }
+        return compilationUnit.getResult().get();
+    }
+
+    // counts the parsed files for the progress listener
+    private class ParsedFiles {
+        private AtomicInteger parsed;
+        private int total;
+
+        ParsedFiles(int parsed, int total) {
+            this.parsed = new AtomicInteger(parsed);
+            this.total = total;
+            report(parsed);
         }
-        if(calleeClass!=null && calleeClass.contains("<")){
-            calleeClass = removeBracket(calleeClass);
+
+        void increment() {
+            report(parsed.incrementAndGet());
         }
-        json.put("calleeClass",calleeClass);
-        String callerName = helpGetCallerName(variableName, mc);
-        json.put("callerName",callerName);
-        GraphElement nextClass = getTargetClass(this.listOfResults, calleeClass);
-        if(nextClass!=null){//case car.a()
-            json = baseHelper(json,nextClass,callerName);
-        }else {
-            //case where new method declaration
-            for(Node n:mc.getChildNodes()){
-                if(n instanceof ObjectCreationExpr){
-                    calleeClass = ((ObjectCreationExpr) n).getTypeAsString();
-                    callerName = helpGetCallerName(variableName, mc);
-                    json.remove("calleeClass");
-                    json.remove("callerName");
-                    json.put("callerName",callerName);
-                    json.put("calleeClass",calleeClass);
-                    nextClass = getTargetClass(this.listOfResults, calleeClass);
-                }
-            }
-            if(nextClass!=null){
-                json = baseHelper(json, nextClass, callerName);
-            }
-            //handle System.out.println(foo());
-            if(!mc.getChildNodes().equals(Collections.emptyList())){
-                for(Node n:mc.getChildNodes()){
-                    if(n instanceof MethodCallExpr){
-                        JSONObject temp = initSeqJSON(n,m,ge);
-                        if(temp!=null){
-                            JSONArray temparr = new JSONArray();
-                            if(temp.has("sep")){
-                                JSONArray jj = (JSONArray) temp.get("sep");
-                                while(jj.length()!=0){
-                                    if(checkJSONFullSize((JSONObject) jj.get(0))){
-                                        temparr.put(jj.remove(0));
-                                    }
-                                }
-                                json.put("call",temparr);
-                            }else{
-                                if(temp.has("cond")){
-                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                                    while(nextLevelCond.length()!=0){
-                                        temparr.put(nextLevelCond.remove(0));
-                                    }
-                                    if(temp.has("stmt")){
-                                        temparr.put(temp.get("stmt"));
-                                    }
-                                }else{
-                                    if(temp.has("sep")){
-                                        JSONArray sep = (JSONArray) temp.get("sep");
-                                        while(sep.length()!=0){
-                                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                                temparr.put(sep.remove(0));
-                                            }
-                                        }
-                                    }else{
-                                        if(checkJSONFullSize(temp)){
-                                            temparr.put(temp);
-                                        }
-                                    }
-                                }
-                                json.put("call",temparr);
-                            }
-                        }
-                    }else if(n instanceof BinaryExpr){
-                        JSONArray sys = traverseTreeSys(n,m,ge);
-                        if(sys.length()!=0){
-                            json.put("call",sys);
-                        }
-                    }
-                }
-            } else{
-                json.put("call",new JSONArray());
+
+        private void report(int count) {
+            if (progress != null) {
+                progress.filesParsed(count, total);
             }
         }
-        if(json.has("callerClass") && !json.has("calleeClass")){
-            if(json.has("call")){
-                if(json.get("call") instanceof JSONArray){
-                    return (JSONArray) json.get("call");
-                }
+    }
 
+    private <T> T awaitResult(Future<T> future) throws FileNotFoundException, ProjectParseException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProjectParseException("Parsing was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ProjectParseException) {
+                throw (ProjectParseException) cause;
+            } else if (cause instanceof FileNotFoundException) {
+                throw (FileNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            return null;
-        }
-        if(checkJSONFullSize(json)){
-            jarr.put(json);
+            throw new ProjectParseException("Failed to parse project: " + cause.getMessage());
         }
-        return jarr;
     }
 
     /*
-    helper method for nested function call: a.foo() and foo().boo()
+    Extends and Implements will be kept anyway even though the targeted class is not in the project directory.
+    Normal dependency has to be check if the dependent class exists in the project directory, if not exists,
+    it will be ignored.
+    Every class name a type mentions counts (generic arguments, array element types, the last part of a
+    qualified name), it is looked up in a set of the project's class names so this is linear in the project
+    size. With memberDependencies the parameter, return and local variable types of methods count as well.
+    A class copied from an earlier upload keeps its dependencies unless one of the names it refers to is an
+    affected class.
      */
-    private JSONArray getJSONNestedFuncCall(Node node,Method m,GraphElement ge, int level){
-        JSONArray jarray = new JSONArray();
-        Node child = node;
-        GraphElement currClass = ge;
-        GraphElement nextClass = null;
-        Method currMethod = m;
-        Method nextMethod = null;
-        for(int j = 1; j<level;j++){
-            if(child.getChildNodes()!=null && !child.getChildNodes().equals(Collections.emptyList())){
-                child = child.getChildNodes().get(0);
-            }
+    private void setDependency() {
+        Set<String> classNames = new HashSet<String>();
+        for (GraphElement g: listOfResults) {
+            classNames.add(g.getClassName());
         }
-        for(int i =0;i<level;i++){
-            if(i==0){
-                JSONArray temp = getJSONFuncCall((MethodCallExpr) node, m, ge);
-                if(temp!=null&&temp.length()!=0){
-                    while(temp.length()!=0){
-                        if(checkJSONFullSize((JSONObject) temp.get(0))){
-                            jarray.put(temp.remove(0));
-                        }
-                    }
-                }
-                if(!child.getParentNode().equals(Optional.empty())){
-                    child = child.getParentNode().get();
-                }
-                if(child!=null && child instanceof MethodCallExpr){
-                    String variableName = normalCall(node);
-                    String callerName = helpGetCallerName(variableName, node);
-                    String calleeClass = checkVarFromParam(variableName,m,ge);
-                    if(calleeClass!=null && calleeClass.contains("<")){calleeClass= removeBracket(calleeClass);};
-                    nextClass = getTargetClass(this.listOfResults, calleeClass);
-                    if(nextClass!=null){
-                        currMethod = getTargetMethod(nextClass.getListOfMethods(),callerName,null);
-                        if(currMethod==null){
-                            for(String s:nextClass.getInh()){
-                                GraphElement tempClass = getTargetClass(this.listOfResults,s);
-                                currMethod = getTargetMethod(tempClass.getListOfMethods(),callerName,null);
-                            }
-                            if(currMethod==null){
-                                for(String s:nextClass.getImp()){
-                                    GraphElement tempClass = getTargetClass(this.listOfResults,s);
-                                    currMethod = getTargetMethod(tempClass.getListOfMethods(),callerName,null);
-                                }
-                                if(currMethod==null){return null;}
-                            }
-                        }
-                        String nextClassName = currMethod.getReturnType();
-                        String nextMethodName = ((MethodCallExpr) child).getNameAsString();
-                        nextClass = getTargetClass(listOfResults,nextClassName);
-                        if(nextClass!=null){
-                            nextMethod = getTargetMethod(nextClass.getListOfMethods(),nextMethodName,nextClass);
-                        }
-                    }
+        Map<String, List<String>> typeNames = new HashMap<String, List<String>>();
+        for (GraphElement g: listOfResults) {
+            Set<String> referenced;
+            if (reusedSources.containsKey(g)) {
+                referenced = g.getReferencedTypes();
+                if (Collections.disjoint(referenced, affectedClasses)) {
+                    continue;
                 }
-            }else{
-                if(child!=null && child instanceof MethodCallExpr && nextMethod != null){
-                    JSONObject temp = getNextLevelCallJSON(currClass, nextClass, currMethod, nextMethod, (MethodCallExpr) child);
-                    if(temp!=null){
-                        if(temp.has("sep")){
-                            JSONArray sep = (JSONArray) temp.get("sep");
-                            while(sep.length()!=0){
-                                if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                    jarray.put(sep.remove(0));
-                                }
-                            }
-                        }else{
-                            if(checkJSONFullSize(temp)){
-                                jarray.put(temp);
-                            }
-                        }
-                    }
-                    String nextClassName = nextMethod.getReturnType();
-                    String nextMethodName = ((MethodCallExpr) child).getNameAsString();
-                    nextClass = getTargetClass(listOfResults,nextClassName);
-                    if(nextClass!=null){
-                        nextMethod = getTargetMethod(nextClass.getListOfMethods(),nextMethodName,null);
-                    }
-                    if(!child.getParentNode().equals(Optional.empty())){
-                        child = child.getParentNode().get();
-                    }
+            } else {
+                referenced = getReferencedTypes(g, typeNames);
+                g.setReferencedTypes(referenced);
+            }
+            g.clearDep();
+            for (String name: referenced) {
+                if (classNames.contains(name)) {
+                    g.addDep(name);
                 }
             }
         }
-
-        return jarray;
     }
 
-    private JSONObject baseHelper(JSONObject json, GraphElement nextClass, String callerName){
-        Method nextMethod = getTargetMethod(nextClass.getListOfMethods(),callerName,null);
-        if(nextMethod!=null && nextMethod.getMethodCall().size()!=0){
-            String rtype = getTargetMethod(nextClass.getListOfMethods(),callerName,null).getReturnType();
-            json.put("returnType",(rtype.equals("void"))?"":rtype);
-            json.put("param", getParam(nextMethod));
-            JSONArray nextCallArr = new JSONArray();
-            for(Node newNode:nextMethod.getMethodCall()){
-                JSONObject temp = initSeqJSON(newNode,nextMethod,nextClass);
-                if(temp!=null){
-                    if(temp.has("sep")){
-                        JSONArray sep = (JSONArray) temp.get("sep");
-                        while(sep.length()!=0){
-                            if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                nextCallArr.put(sep.remove(0));
-                            }
-                        }
-                    }else{
-                        if(temp.has("cond")){
-                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
-                            while(nextLevelCond.length()!=0){
-                                nextCallArr.put(nextLevelCond.remove(0));
-                            }
-                            if(temp.has("stmt")){
-                                nextCallArr.put(temp.get("stmt"));
-                            }
-                        }else{
-                            if(checkJSONFullSize(temp)){
-                                nextCallArr.put(temp);
-                            }
-                        }
-                    }
-                }
-            }
-            json.put("call",nextCallArr);
-        }else if(nextMethod!=null){
-            json.put("returnType",(nextMethod.getReturnType().equals("void"))?"":nextMethod.getReturnType());
-            json.put("param", getParam(nextMethod));
-            json.put("call",new JSONArray());
-        }else{
-            //extended method
-            for(String s:nextClass.getInh()){
-                GraphElement tempClass = getTargetClass(this.listOfResults,s);
-                nextMethod = getTargetMethod(tempClass.getListOfMethods(),callerName,null);
-                if(nextMethod!=null){
-                    nextClass = tempClass;
-                }
-            }
-            for(String s:nextClass.getImp()){
-                GraphElement tempClass = getTargetClass(this.listOfResults,s);
-                nextMethod = getTargetMethod(tempClass.getListOfMethods(),callerName,null);
-                if(nextMethod!=null){
-                    nextClass = tempClass;
-                }
-            }
-            if(nextMethod==null){
-                return json;
+    private Set<String> getReferencedTypes(GraphElement g, Map<String, List<String>> typeNames) {
+        Set<String> referenced = new HashSet<String>();
+        for (Field f: g.getFields()) {
+            addTypeNames(f.getType(g.getStrings()), referenced, typeNames);
+        }
+        if (!memberDependencies) {
+            return referenced;
+        }
+        for (Method m: g.getListOfMethods()) {
+            for (int i = 0; i < m.getParamCount(); i++) {
+                addTypeNames(m.getParamType(i, g.getStrings()), referenced, typeNames);
             }
-            json.put("returnType",(nextMethod.getReturnType().equals("void"))?"":nextMethod.getReturnType());
-            json.put("param", getParam(nextMethod));
-            if(nextMethod.getMethodCall().size()!=0){
-                JSONArray nextCallArr = new JSONArray();
-                for(Node newNode:nextMethod.getMethodCall()){
-                    JSONObject temp = initSeqJSON(newNode,nextMethod,nextClass);
-                    if(temp!=null){
-                        if(temp.has("sep")){
-                            JSONArray sep = (JSONArray) temp.get("sep");
-                            while(sep.length()!=0){
-                                if(checkJSONFullSize((JSONObject) sep.get(0))){
-                                    nextCallArr.put(sep.remove(0));
-                                }
-                            }
-                        }else{
-                            if(checkJSONFullSize(temp)){
-                                nextCallArr.put(temp);
-                            }
-                        }
-                    }
+            addTypeNames(m.getReturnType(g.getStrings()), referenced, typeNames);
+            if (m.getAllStatements() != null) {
+                for (VariableDeclarator variable: m.getAllStatements().findAll(VariableDeclarator.class)) {
+                    addTypeNames(variable.getTypeAsString(), referenced, typeNames);
                 }
-                json.put("call",nextCallArr);
-            }else{
-                json.put("call",new JSONArray());
             }
         }
-        return json;
+        return referenced;
+    }
+
+    private void addTypeNames(String type, Set<String> referenced, Map<String, List<String>> typeNames) {
+        if (type == null || type.isEmpty()) {
+            return;
+        }
+        // the same few types show up over and over, split every distinct one only once
+        referenced.addAll(typeNames.computeIfAbsent(type, ProjectCollector::getTypeNames));
     }
 
     /*
-    traverse and retrieve all function calls from switch statement condition
+    the simple names of all types in a type string, e.g. "Map<String, java.util.List<Foo>>[]" gives
+    Map, String, List and Foo
      */
-    private JSONArray traverseTreeSwitch(Node node,Method m, GraphElement ge){
-        JSONArray reverseArr = new JSONArray();
-        for(Node child:node.getChildNodes()){
-            if(child instanceof MethodCallExpr){
-                JSONObject temp= initSeqJSON(child,m,ge);
-                if(temp!=null&&temp.has("sep")){
-                    JSONArray jj = (JSONArray) temp.get("sep");
-                    while(jj.length()!=0){
-                        if(checkJSONFullSize((JSONObject) jj.get(0))){
-                            reverseArr.put(jj.remove(0));
-                        }
-                    }
-                }
-            }
+    static List<String> getTypeNames(String type) {
+        List<String> names = new ArrayList<String>();
+        Matcher matcher = TYPE_NAME.matcher(type);
+        while (matcher.find()) {
+            String name = matcher.group();
+            names.add(name.substring(name.lastIndexOf('.') + 1).trim());
         }
-        return reverseArr;
+        return names;
+    }
+
+    public JSONArray getSeqDiagramInfo(String className, String methodName) {
+        return getSeqDiagramInfo(className, methodName, SequenceOptions.defaults());
+    }
+
+    public JSONArray getSeqDiagramInfo(String className, String methodName, SequenceOptions options) {
+        return getSeqDiagramInfo(className, methodName, options, null);
     }
 
     /*
-    checker method for nested function calls. Check for number of function calls in one MethodCallExp
-    if the number of MethodCallExp in this child nodes is greater than 1, the argument of this function
-    call is also a function call
+        The sequence diagram, the number of calls expanded for it is reported to metrics when given. A project
+        read back from a snapshot has no metrics of its own, so the caller passes them.
      */
-    private boolean moreThanOneMethodCallExp(MethodCallExpr mc,MethodCallExpr n){
-
-        return !mc.getNameAsString().equals(n.getNameAsString());
+    public JSONArray getSeqDiagramInfo(String className, String methodName, SequenceOptions options, AnalysisMetrics metrics) {
+        GraphElement ge = getTargetClass(className);
+        if(ge==null){return new JSONArray();}
+        Method m = getTargetMethod(ge,methodName,null);
+        if(m==null){return new JSONArray();}
+        CompactSequences compiled = lazyMethodBodies ? getLazySequences(ge, m) : this.sequences;
+        int id = compiled.getId(ge.getClassName(), m.getName(ge.getStrings()));
+        if(id<0){return new JSONArray();}
+        SequenceExpansion expansion = new SequenceExpansion(compiled, options);
+        JSONArray calls = expansion.expand(id);
+        if (metrics != null) {
+            metrics.sequenceExpanded(expansion.getExpandedNodes());
+        }
+        return calls;
     }
 
     /*
-    helper method to retrieve all function calls in foreach statement's condition
+        The sequences of a method and its callees, compiled on the first request from the parsed again sources of
+        the classes involved. Their statements are dropped again right after, only the compact form is kept.
+        One method is compiled at a time since compiling restores statements on the shared methods.
      */
-    private JSONArray checkIterable(ForEachStmt node,Method m, GraphElement ge){
-        JSONArray reverseArr = new JSONArray();
-        Node child = node.getIterable();
-        JSONObject temp= initSeqJSON(child,m,ge);
-        if(temp!=null&&temp.has("sep")){
-            JSONArray jj = (JSONArray) temp.get("sep");
-            while(jj.length()!=0){
-                if(checkJSONFullSize((JSONObject) jj.get(0))){
-                    reverseArr.put(jj.remove(0));
+    private CompactSequences getLazySequences(GraphElement ge, Method m) {
+        if (callGraph != null) {
+            // every method was compiled for the call graph
+            return this.sequences;
+        }
+        String key = CompactSequences.key(ge.getClassName(), m.getName(ge.getStrings()));
+        CompactSequences compiled = lazySequences.get(key);
+        if (compiled != null) {
+            return compiled;
+        }
+        synchronized (lazyLock) {
+            compiled = lazySequences.get(key);
+            if (compiled == null) {
+                try {
+                    compiled = new SequenceCompiler(this).compile(ge, m);
+                } finally {
+                    releaseStatements(restoredClasses);
+                    restoredClasses.clear();
                 }
+                lazySequences.put(key, compiled);
             }
+            return compiled;
         }
-        return reverseArr;
     }
 
-    private JSONObject getVarDeclaCall(Node node,Method m ,GraphElement ge){
-        JSONArray jar=findAllMethodCall(node,m,ge);
-        if(jar.length()!=0){
-            JSONObject json = new JSONObject();
-            json.put("sep",jar);
-            return json;
+    /*
+        The call graph of the whole project. With lazy method bodies every method body is analysed for it the
+        first time, the sequences compiled for it then serve the sequence diagrams as well.
+     */
+    public CallGraph getCallGraph() {
+        CallGraph graph = callGraph;
+        if (graph != null) {
+            return graph;
         }
-        return new JSONObject();
-    }
-
-    private JSONArray findAllMethodCall(Node node, Method m,GraphElement ge){
-        JSONArray jarr = new JSONArray();
-        for(Node n:node.getChildNodes()){
-            if(n instanceof VariableDeclarationExpr || n instanceof VariableDeclarator){
-                JSONArray temp = findAllMethodCall(n,m,ge);
-                while (temp.length()!=0){
-                    if(checkJSONFullSize((JSONObject) temp.get(0))){
-                        jarr.put(temp.remove(0));
-                    }
-                }
-            }else if(n instanceof MethodCallExpr){
-                JSONObject json = initSeqJSON(n,m,ge);
-                if(json!=null&&json.has("sep")){
-                    JSONArray jj = (JSONArray) json.get("sep");
-                    while(jj.length()!=0){
-                        if(checkJSONFullSize((JSONObject) jj.get(0))){
-                            jarr.put(jj.remove(0));
-                        }
-                    }
+        synchronized (lazyLock) {
+            if (callGraph == null) {
+                CompactSequences compiled;
+                try {
+                    compiled = new SequenceCompiler(this).compile(this.listOfResults, 1);
+                } catch (ProjectParseException e) {
+                    // only thrown by the parallel build
+                    throw new IllegalStateException(e);
+                } finally {
+                    releaseStatements(restoredClasses);
+                    restoredClasses.clear();
                 }
+                this.sequences = compiled;
+                this.callGraph = CallGraph.build(compiled);
+                this.lazySequences.clear();
             }
+            return callGraph;
         }
-        return jarr;
     }
 
-    private JSONObject getThrowCall(Node node, Method m,GraphElement ge){
-        JSONArray jar=traverseThrowCall(node,m,ge);
-        if(jar.length()!=0){
-            JSONObject json = new JSONObject();
-            json.put("sep",jar);
-            return json;
-        }
-        return new JSONObject();
+    /*
+    get the GraphElement object by name
+     */
+    GraphElement getTargetClass(String name){
+        return symbolIndex.getClass(name);
     }
 
-    private JSONArray traverseThrowCall(Node node, Method m,GraphElement ge){
-        JSONArray jar = new JSONArray();
-        for(Node n:node.getChildNodes()){
-            if(n instanceof BinaryExpr || n instanceof ObjectCreationExpr){
-                JSONArray temp = traverseThrowCall(n,m,ge);
-                while(temp.length()!=0){
-                    if(checkJSONFullSize((JSONObject) temp.get(0))){
-                        jar.put(temp.remove(0));
-                    }
-                }
-            }else if(n instanceof MethodCallExpr){
-                JSONObject json = initSeqJSON(n,m,ge);
-                if(json!=null&&json.has("sep")){
-                    JSONArray jj = (JSONArray) json.get("sep");
-                    while(jj.length()!=0){
-                        if(checkJSONFullSize((JSONObject) jj.get(0))){
-                            jar.put(jj.remove(0));
-                        }
-                    }
-                }
+    /*
+    get the Method object by name inside of current class, if providedClass is given the extended class
+    is searched as well. Classes with the same simple name can make the extended classes a cycle, the search
+    stops at the first class it has already looked in.
+     */
+    Method getTargetMethod(GraphElement ge, String name, GraphElement providedClass){
+        Method result = symbolIndex.getMethod(ge, name);
+        Set<GraphElement> visited = Collections.newSetFromMap(new IdentityHashMap<GraphElement, Boolean>());
+        visited.add(ge);
+        while (result == null && providedClass != null && providedClass.getInh().size() > 0) {
+            // check extended class for the method
+            Set<String> extnededClassName = providedClass.getInh();
+            GraphElement extendedClass = getTargetClass(extnededClassName.iterator().next());
+            if (extendedClass == null || !visited.add(extendedClass)) {
+                return null;
             }
+            result = symbolIndex.getMethod(extendedClass, name);
+            providedClass = extendedClass;
         }
-        return jar;
-    }
 
-    private boolean checkJSONFullSize(JSONObject json){
-        return (json!=null&&json.has("type")&&json.has("callerClass")&&json.has("calleeClass")&&
-                json.has("callerName")&& json.has("returnType")&&json.has("call")&& json.has("param"))
-                || (json!=null&&json.has("type")&&json.has("call")&&(json.get("type").equals("loop")||json.get("type").equals("alt")||
-                json.get("type").equals("opt")));
+        return result;
     }
 
-    private String removeBracket(String name){
-        int start = name.indexOf("<");
-        name = name.substring(0,start);
-        return name;
+    /*
+    get the declared type of a field of the class, null if there is no such field
+     */
+    String getFieldType(GraphElement ge, String name){
+        return symbolIndex.getFieldType(ge, name);
     }
 }
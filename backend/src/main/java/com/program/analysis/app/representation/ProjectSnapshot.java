@@ -0,0 +1,280 @@
+package com.program.analysis.app.representation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Binary form of an analysed project, so it can be read back after a restart without parsing it again.
+    Layout (big endian ints):
+    - MAGIC, VERSION, memberDependencies (0/1)
+    - the string table of the model: count, then (byte length, UTF-8 bytes) per string
+    - the classes, every string as its ID in the table (-1 for null) and every set as (count, IDs)
+    - the content hash of every source file with the indexes of the classes it declares
+    - the CompactSequences with their own string table
+    - the sources of a project with lazy method bodies: count (-1 for an eager project), then
+      (byte length, content) per distinct source and the index of its source (-1 for none) per class
+    Reading only copies out of the buffer, so a memory mapped file can be read directly.
+ */
+public class ProjectSnapshot {
+    private static final int MAGIC = 0x50414e53;
+    private static final int VERSION = 1;
+
+    public static void write(ProjectCollector project, OutputStream outputStream) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream model = new ByteArrayOutputStream();
+        DataOutputStream modelOut = new DataOutputStream(model);
+
+        List<GraphElement> classes = new ArrayList<GraphElement>(project.getClasses());
+        Map<GraphElement, Integer> indexes = new IdentityHashMap<GraphElement, Integer>();
+        modelOut.writeInt(classes.size());
+        for (GraphElement ge: classes) {
+            indexes.put(ge, indexes.size());
+            writeClass(modelOut, ge, strings);
+        }
+        Map<String, List<GraphElement>> sources = project.getElementsBySource();
+        modelOut.writeInt(sources.size());
+        for (Map.Entry<String, List<GraphElement>> source: sources.entrySet()) {
+            modelOut.writeInt(strings.intern(source.getKey()));
+            modelOut.writeInt(source.getValue().size());
+            for (GraphElement ge: source.getValue()) {
+                modelOut.writeInt(indexes.get(ge));
+            }
+        }
+        modelOut.flush();
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(project.getMemberDependencies() ? 1 : 0);
+        out.writeInt(strings.size());
+        for (int i = 0; i < strings.size(); i++) {
+            writeString(out, strings.get(i));
+        }
+        model.writeTo(out);
+        project.getSequences().writeTo(out);
+        writeLazySources(out, project, classes);
+        out.flush();
+    }
+
+    public static ProjectCollector read(ByteBuffer buffer) throws IOException {
+        int version = buffer.getInt() == MAGIC ? buffer.getInt() : -1;
+        if (version != VERSION) {
+            throw new IOException("Not a project snapshot of this version");
+        }
+        boolean memberDependencies = buffer.getInt() == 1;
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+
+        // the table of the restored classes, it only gets the strings they use
+        StringTable modelStrings = new StringTable();
+        List<GraphElement> classes = new ArrayList<GraphElement>();
+        int classCount = buffer.getInt();
+        for (int i = 0; i < classCount; i++) {
+            classes.add(readClass(buffer, strings, modelStrings));
+        }
+        Map<String, List<GraphElement>> sources = new HashMap<String, List<GraphElement>>();
+        int sourceCount = buffer.getInt();
+        for (int i = 0; i < sourceCount; i++) {
+            String hash = strings[buffer.getInt()];
+            List<GraphElement> elements = new ArrayList<GraphElement>();
+            int elementCount = buffer.getInt();
+            for (int j = 0; j < elementCount; j++) {
+                elements.add(classes.get(buffer.getInt()));
+            }
+            sources.put(hash, elements);
+        }
+        CompactSequences sequences = CompactSequences.readFrom(buffer);
+        Map<GraphElement, JavaSource> lazySources = readLazySources(buffer, classes);
+        return ProjectCollector.restore(classes, modelStrings, sources, sequences, memberDependencies, lazySources);
+    }
+
+    private static void writeLazySources(DataOutputStream out, ProjectCollector project, List<GraphElement> classes) throws IOException {
+        if (!project.getLazyMethodBodies()) {
+            out.writeInt(-1);
+            return;
+        }
+        // files with the same content share their JavaSource, so every distinct source is written once
+        Map<JavaSource, Integer> sourceIndexes = new IdentityHashMap<JavaSource, Integer>();
+        List<JavaSource> sources = new ArrayList<JavaSource>();
+        for (GraphElement ge: classes) {
+            JavaSource source = project.getLazySource(ge);
+            if (source != null && sourceIndexes.putIfAbsent(source, sources.size()) == null) {
+                sources.add(source);
+            }
+        }
+        out.writeInt(sources.size());
+        for (JavaSource source: sources) {
+            byte[] content = source.getContent();
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        for (GraphElement ge: classes) {
+            JavaSource source = project.getLazySource(ge);
+            out.writeInt(source == null ? -1 : sourceIndexes.get(source));
+        }
+    }
+
+    private static Map<GraphElement, JavaSource> readLazySources(ByteBuffer buffer, List<GraphElement> classes) {
+        int sourceCount = buffer.getInt();
+        if (sourceCount < 0) {
+            return null;
+        }
+        List<JavaSource> sources = new ArrayList<JavaSource>();
+        for (int i = 0; i < sourceCount; i++) {
+            byte[] content = new byte[buffer.getInt()];
+            buffer.get(content);
+            sources.add(JavaSource.fromBytes("snapshot source " + i, content));
+        }
+        Map<GraphElement, JavaSource> lazySources = new IdentityHashMap<GraphElement, JavaSource>();
+        for (GraphElement ge: classes) {
+            int index = buffer.getInt();
+            if (index >= 0) {
+                lazySources.put(ge, sources.get(index));
+            }
+        }
+        return lazySources;
+    }
+
+    private static void writeClass(DataOutputStream out, GraphElement ge, StringTable strings) throws IOException {
+        writeId(out, ge.getClassName(), strings);
+        writeId(out, ge.getClassType(), strings);
+        writeIds(out, ge.getTypeParameters(), strings);
+        writeIds(out, ge.getInh(), strings);
+        writeIds(out, ge.getImp(), strings);
+        writeIds(out, ge.getDep(), strings);
+        writeIds(out, ge.getReferencedTypes(), strings);
+        // the strings of the project, the IDs written are the ones of the snapshot's table
+        StringTable model = ge.getStrings();
+        out.writeInt(ge.getFields().size());
+        for (Field f: ge.getFields()) {
+            writeId(out, f.getName(model), strings);
+            writeId(out, f.getType(model), strings);
+            writeId(out, f.getAccess(model), strings);
+        }
+        out.writeInt(ge.getListOfMethods().size());
+        for (Method m: ge.getListOfMethods()) {
+            writeId(out, m.getName(model), strings);
+            writeId(out, m.getAccess(model), strings);
+            writeId(out, m.getReturnType(model), strings);
+            out.writeInt(m.getParamCount());
+            for (int i = 0; i < m.getParamCount(); i++) {
+                writeId(out, m.getParamType(i, model), strings);
+                writeId(out, m.getParamName(i, model), strings);
+            }
+        }
+    }
+
+    private static GraphElement readClass(ByteBuffer buffer, String[] strings, StringTable modelStrings) {
+        String className = readId(buffer, strings);
+        String classType = readId(buffer, strings);
+        Set<String> tp = readIds(buffer, strings);
+        Set<String> inh = readIds(buffer, strings);
+        Set<String> imp = readIds(buffer, strings);
+        Set<String> dep = readIds(buffer, strings);
+        Set<String> referencedTypes = readIds(buffer, strings);
+        Set<Field> fields = new HashSet<Field>();
+        int fieldCount = buffer.getInt();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(new Field(readId(buffer, strings), readId(buffer, strings), readId(buffer, strings), modelStrings));
+        }
+        Set<Method> methods = new HashSet<Method>();
+        int methodCount = buffer.getInt();
+        for (int i = 0; i < methodCount; i++) {
+            String name = readId(buffer, strings);
+            String access = readId(buffer, strings);
+            String returnType = readId(buffer, strings);
+            List<String> paramTypes = new ArrayList<String>();
+            List<String> paramNames = new ArrayList<String>();
+            int paramCount = buffer.getInt();
+            for (int j = 0; j < paramCount; j++) {
+                paramTypes.add(readId(buffer, strings));
+                paramNames.add(readId(buffer, strings));
+            }
+            Method m = new Method(name, access, returnType, paramTypes, paramNames, modelStrings);
+            m.releaseStatements();
+            methods.add(m);
+        }
+        return new GraphElement(className, classType, fields, methods, inh, imp, tp, dep, referencedTypes, modelStrings);
+    }
+
+    private static void writeId(DataOutputStream out, String s, StringTable strings) throws IOException {
+        out.writeInt(s == null ? -1 : strings.intern(s));
+    }
+
+    private static String readId(ByteBuffer buffer, String[] strings) {
+        int id = buffer.getInt();
+        return id < 0 ? null : strings[id];
+    }
+
+    private static void writeIds(DataOutputStream out, Set<String> set, StringTable strings) throws IOException {
+        if (set == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(set.size());
+        for (String s: set) {
+            writeId(out, s, strings);
+        }
+    }
+
+    private static Set<String> readIds(ByteBuffer buffer, String[] strings) {
+        int size = buffer.getInt();
+        if (size < 0) {
+            return null;
+        }
+        // the class diagram lists these in the order they were written
+        Set<String> set = new LinkedHashSet<String>();
+        for (int i = 0; i < size; i++) {
+            set.add(readId(buffer, strings));
+        }
+        return set;
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * 4);
+        bytes.asIntBuffer().put(values);
+        out.write(bytes.array());
+    }
+
+    static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javaparser.Navigator;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    The types declared by the java files of an upload, for the symbol solver. It does what a JavaParserTypeSolver
+    does for a source folder, but over the JavaSources: in streaming mode they are read straight from the zip
+    and with lazy method bodies they outlive the extracted folder, so there is no folder to root one at.
+    A lexical scan tells the top level types of every file up front, a file is only parsed when one of its types
+    is first looked up. Found and missing types are cached by qualified name for every later lookup.
+ */
+class ProjectTypeSolver implements TypeSolver {
+    private TypeSolver parent;
+    // the file of every top level type by qualified name, the first file wins when two declare the same type
+    private Map<String, JavaSource> sources = new HashMap<String, JavaSource>();
+    private Map<JavaSource, CompilationUnit> units = new IdentityHashMap<JavaSource, CompilationUnit>();
+    private Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> types =
+            new ConcurrentHashMap<String, SymbolReference<ResolvedReferenceTypeDeclaration>>();
+
+    ProjectTypeSolver(Collection<JavaSource> javaSources) {
+        for (JavaSource source: javaSources) {
+            SourceScan scan = SourceScan.scan(source.getContent());
+            String prefix = scan.getPackageName().isEmpty() ? "" : scan.getPackageName() + ".";
+            for (String typeName: scan.getTypeNames()) {
+                sources.putIfAbsent(prefix + typeName, source);
+            }
+        }
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        // no computeIfAbsent, solving a type can look up other types
+        SymbolReference<ResolvedReferenceTypeDeclaration> type = types.get(name);
+        if (type == null) {
+            type = findType(name);
+            types.put(name, type);
+        }
+        return type;
+    }
+
+    /*
+        name is a top level type or a member type of one, e.g. "com.example.Outer.Inner"; the longest prefix
+        that is a top level type of the project gives the file
+     */
+    private SymbolReference<ResolvedReferenceTypeDeclaration> findType(String name) {
+        String[] parts = name.split("\\.");
+        for (int i = parts.length; i > 0; i--) {
+            JavaSource source = sources.get(String.join(".", Arrays.copyOfRange(parts, 0, i)));
+            if (source == null) {
+                continue;
+            }
+            CompilationUnit unit = parse(source);
+            Optional<TypeDeclaration<?>> declaration = unit == null ? Optional.empty()
+                    : Navigator.findType(unit, String.join(".", Arrays.copyOfRange(parts, i - 1, parts.length)));
+            if (declaration.isPresent()) {
+                return SymbolReference.solved(JavaParserFacade.get(getRoot()).getTypeDeclaration(declaration.get()));
+            }
+            break;
+        }
+        return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+    }
+
+    /*
+        Drops the parsed files and the types found in them, a later lookup parses the file again
+     */
+    void clear() {
+        synchronized (units) {
+            units.clear();
+            types.clear();
+        }
+    }
+
+    // null when the file can not be read or parsed
+    private CompilationUnit parse(JavaSource source) {
+        synchronized (units) {
+            if (units.containsKey(source)) {
+                return units.get(source);
+            }
+            CompilationUnit unit = null;
+            try {
+                ParseResult<CompilationUnit> result = source.parse(new JavaParser());
+                unit = result.getResult().orElse(null);
+            } catch (FileNotFoundException e) {
+                // stays unsolved
+            }
+            units.put(source, unit);
+            return unit;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.program.analysis.app.representation;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+    Builds the shallow sequence diagram of every method once, right after parsing, and encodes it into
+    CompactSequences, after which the method bodies are not needed anymore. With lazily analysed method bodies
+    it builds one method and its callees at a time instead.
+    Every method of every class gets a sequence, plus every (class, method) pair a call site points at, e.g. an
+    inherited method called through a subclass.
+    When the project is a new upload of an earlier one, the sequences of unchanged classes that did not look at
+    a changed class are copied from the earlier project instead of being built again.
+ */
+class SequenceCompiler {
+    private ProjectCollector project;
+    private StringTable strings;
+    private int[] code;
+    private int codeSize;
+    private List<Integer> starts;
+    private List<Method> methods;
+    private List<GraphElement> owners;
+    private Map<Method, Integer> methodIds;
+    private Map<String, Integer> ids;
+    private List<Integer> lookupStarts;
+    private int[] lookups;
+    private int lookupSize;
+    // earlier upload of the project, null when everything is built
+    private CompactSequences base;
+    private Set<GraphElement> reused;
+    private Set<String> affected;
+    private Map<Method, GraphElement> declaringClasses;
+    private int copied;
+    // the symbol solver lookups of this compile, null without symbol resolution
+    private TypeResolver.Request resolution;
+
+    SequenceCompiler(ProjectCollector project) {
+        this.project = project;
+        this.strings = new StringTable();
+        this.code = new int[1024];
+        this.starts = new ArrayList<Integer>();
+        this.methods = new ArrayList<Method>();
+        this.owners = new ArrayList<GraphElement>();
+        this.methodIds = new IdentityHashMap<Method, Integer>();
+        this.ids = new HashMap<String, Integer>();
+        this.lookupStarts = new ArrayList<Integer>();
+        this.lookups = new int[256];
+        this.resolution = project.startResolution();
+    }
+
+    /*
+        Copy the sequences of the reused classes from base unless they looked up one of the affected classes
+     */
+    SequenceCompiler reuse(CompactSequences base, Set<GraphElement> reused, Set<String> affected) {
+        this.base = base;
+        this.reused = reused;
+        this.affected = affected;
+        return this;
+    }
+
+    // number of sequences copied from the earlier upload by the last compile
+    int getCopied() {
+        return copied;
+    }
+
+    CompactSequences compile(Collection<GraphElement> classes, int parallelism) throws ProjectParseException {
+        for (GraphElement ge: classes) {
+            if (project.getTargetClass(ge.getClassName()) != ge) {
+                // a second class with the same name can never be looked up
+                continue;
+            }
+            Set<String> methodNames = new LinkedHashSet<String>();
+            for (Method m: ge.getListOfMethods()) {
+                methodNames.add(m.getName(ge.getStrings()));
+            }
+            for (String name: methodNames) {
+                getId(project.getTargetMethod(ge, name, null), ge);
+            }
+        }
+        try {
+            return encodeAll(buildTemplates(methods.size(), parallelism));
+        } finally {
+            project.finishResolution(resolution);
+        }
+    }
+
+    /*
+        Only the sequence of method m of class ge and of the methods it calls, directly or not. Used when the
+        method bodies are analysed on request.
+     */
+    CompactSequences compile(GraphElement ge, Method m) {
+        getId(m, ge);
+        try {
+            return encodeAll(new Object[0]);
+        } finally {
+            project.finishResolution(resolution);
+        }
+    }
+
+    private CompactSequences encodeAll(Object[] templates) {
+        List<String> failures = new ArrayList<String>();
+        // call sites can add (class, method) pairs that are only compiled here
+        for (int id = 0; id < methods.size(); id++) {
+            int sequenceStart = codeSize;
+            starts.add(sequenceStart);
+            lookupStarts.add(lookupSize);
+            if (copySequence(id)) {
+                failures.add(null);
+                continue;
+            }
+            Object template;
+            if (id < templates.length && templates[id] != null) {
+                template = templates[id];
+            } else {
+                prepare(id);
+                template = buildTemplate(id);
+            }
+            String failure = (template instanceof String) ? (String) template : null;
+            if (failure == null) {
+                try {
+                    encode((SequenceTemplate) template, ((SequenceTemplate) template).getCalls());
+                    for (String className: ((SequenceTemplate) template).getLookedUpClasses()) {
+                        addLookup(strings.intern(className));
+                    }
+                } catch (RuntimeException e) {
+                    codeSize = sequenceStart;
+                    lookupSize = lookupStarts.get(id);
+                    failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+                }
+            }
+            failures.add(failure);
+        }
+        starts.add(codeSize);
+        lookupStarts.add(lookupSize);
+
+        int[] start = new int[starts.size()];
+        for (int i = 0; i < start.length; i++) {
+            start[i] = starts.get(i);
+        }
+        int[] methodOf = new int[methods.size()];
+        for (int id = 0; id < methodOf.length; id++) {
+            methodOf[id] = methodIds.get(methods.get(id));
+        }
+        int[] lookupStart = new int[lookupStarts.size()];
+        for (int i = 0; i < lookupStart.length; i++) {
+            lookupStart[i] = lookupStarts.get(i);
+        }
+        return new CompactSequences(strings, Arrays.copyOf(code, codeSize), start, methodOf,
+                failures.toArray(new String[0]), ids, lookupStart, Arrays.copyOf(lookups, lookupSize));
+    }
+
+    /*
+        ID of the sequence in base that can be copied for sequence id, -1 if it has to be built
+     */
+    private int getBaseId(int id) {
+        if (base == null || !reused.contains(owners.get(id))) {
+            return -1;
+        }
+        int baseId = base.getId(owners.get(id).getClassName(), methods.get(id).getName(owners.get(id).getStrings()));
+        if (baseId < 0 || base.looksUpAny(baseId, affected)) {
+            return -1;
+        }
+        return baseId;
+    }
+
+    /*
+        Copy sequence id from base, re-interning the strings and pointing the calls at the sequences of this
+        project. Returns false (with nothing written) when it has to be built instead.
+     */
+    private boolean copySequence(int id) {
+        int baseId = getBaseId(id);
+        if (baseId < 0) {
+            return false;
+        }
+        int sequenceStart = codeSize;
+        try {
+            copyValue(base.getStart(baseId));
+        } catch (IllegalStateException e) {
+            codeSize = sequenceStart;
+            return false;
+        }
+        for (int i = base.getLookupStart(baseId); i < base.getLookupEnd(baseId); i++) {
+            addLookup(strings.intern(base.getString(base.getLookup(i))));
+        }
+        copied++;
+        return true;
+    }
+
+    // copies the value starting at pc and returns the position after it
+    private int copyValue(int pc) {
+        int op = base.getCode(pc);
+        switch (op) {
+            case CompactSequences.ARRAY:
+                int length = base.getCode(pc + 1);
+                emit(op);
+                emit(length);
+                pc += 2;
+                for (int i = 0; i < length; i++) {
+                    pc = copyValue(pc);
+                }
+                return pc;
+            case CompactSequences.OBJECT:
+                int size = base.getCode(pc + 1);
+                emit(op);
+                emit(size);
+                pc += 2;
+                for (int i = 0; i < size; i++) {
+                    emit(strings.intern(base.getString(base.getCode(pc))));
+                    pc = copyValue(pc + 1);
+                }
+                return pc;
+            case CompactSequences.STRING:
+                emit(op);
+                emit(strings.intern(base.getString(base.getCode(pc + 1))));
+                return pc + 2;
+            case CompactSequences.INT:
+                emit(op);
+                emit(base.getCode(pc + 1));
+                return pc + 2;
+            case CompactSequences.CALL:
+                String key = base.getKey(base.getCode(pc + 1));
+                int separator = key.indexOf('#');
+                GraphElement owner = project.getTargetClass(key.substring(0, separator));
+                Method method = owner == null ? null : project.getTargetMethod(owner, key.substring(separator + 1), owner);
+                if (method == null) {
+                    throw new IllegalStateException("The called method " + key + " is not in the project anymore");
+                }
+                emit(op);
+                emit(getId(method, owner));
+                return pc + 2;
+            default:
+                emit(op);
+                return pc + 1;
+        }
+    }
+
+    /*
+        A method of a reused class has no statements anymore, they are parsed again from its source before
+        its sequence can be built
+     */
+    private void prepare(int id) {
+        Method m = methods.get(id);
+        if (m.hasStatements()) {
+            return;
+        }
+        if (declaringClasses == null) {
+            declaringClasses = new IdentityHashMap<Method, GraphElement>();
+            for (GraphElement ge: project.getClasses()) {
+                for (Method method: ge.getListOfMethods()) {
+                    declaringClasses.put(method, ge);
+                }
+            }
+        }
+        GraphElement declaringClass = declaringClasses.get(m);
+        if (declaringClass != null) {
+            project.restoreStatements(declaringClass);
+        }
+    }
+
+    private void addLookup(int stringId) {
+        if (lookupSize == lookups.length) {
+            lookups = Arrays.copyOf(lookups, lookups.length * 2);
+        }
+        lookups[lookupSize++] = stringId;
+    }
+
+    /*
+        ID of the sequence of method m called on class ge. Like the old per request cache, a class has one
+        sequence per method name.
+     */
+    private int getId(Method m, GraphElement ge) {
+        String key = CompactSequences.key(ge.getClassName(), m.getName(ge.getStrings()));
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = methods.size();
+            ids.put(key, id);
+            methods.add(m);
+            owners.add(ge);
+            methodIds.putIfAbsent(m, id);
+        }
+        return id;
+    }
+
+    /*
+        Build the templates of the first count sequences, on a fixed size pool when parallelism is above 1.
+        The builder only reads the ASTs and the symbol index so the methods can be built concurrently.
+     */
+    private Object[] buildTemplates(int count, int parallelism) throws ProjectParseException {
+        Object[] templates = new Object[count];
+        List<Integer> toBuild = new ArrayList<Integer>();
+        for (int id = 0; id < count; id++) {
+            // copied sequences keep a null template
+            if (getBaseId(id) < 0) {
+                prepare(id);
+                toBuild.add(id);
+            }
+        }
+        if (parallelism <= 1 || toBuild.size() <= 1) {
+            for (int id: toBuild) {
+                templates[id] = buildTemplate(id);
+            }
+            return templates;
+        }
+        ExecutorService pool = AnalysisThreads.newFixedThreadPool(Math.min(parallelism, toBuild.size()));
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int id: toBuild) {
+                futures.add(pool.submit(() -> buildTemplate(id)));
+            }
+            for (int i = 0; i < toBuild.size(); i++) {
+                templates[toBuild.get(i)] = futures.get(i).get();
+            }
+            return templates;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProjectParseException("Parsing was interrupted");
+        } catch (ExecutionException e) {
+            throw new ProjectParseException("Failed to parse project: " + e.getCause().getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+        Returns the template, or the error message when the method can not be turned into a sequence diagram.
+        That only fails requests for this method (as before), not the upload.
+     */
+    private Object buildTemplate(int id) {
+        if (!methods.get(id).hasStatements()) {
+            return "IllegalStateException: the body of " + methods.get(id).getName(owners.get(id).getStrings()) + " is not available";
+        }
+        try {
+            return new SequenceDiagramBuilder(project, resolution).build(methods.get(id), owners.get(id));
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    private void encode(SequenceTemplate template, Object value) {
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            SequenceTemplate.PendingCall pending = template.getPendingCall(array);
+            if (pending != null) {
+                emit(CompactSequences.CALL);
+                emit(getId(pending.getMethod(), pending.getOwner()));
+                return;
+            }
+            emit(CompactSequences.ARRAY);
+            emit(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                encode(template, array.get(i));
+            }
+        } else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            emit(CompactSequences.OBJECT);
+            emit(object.length());
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                emit(strings.intern(key));
+                encode(template, object.get(key));
+            }
+        } else if (value instanceof String) {
+            emit(CompactSequences.STRING);
+            emit(strings.intern((String) value));
+        } else if (value instanceof Integer) {
+            emit(CompactSequences.INT);
+            emit((Integer) value);
+        } else if (value instanceof Boolean) {
+            emit((Boolean) value ? CompactSequences.TRUE : CompactSequences.FALSE);
+        } else if (JSONObject.NULL.equals(value)) {
+            emit(CompactSequences.NULL);
+        } else {
+            throw new IllegalStateException("Unexpected value in sequence diagram: " + value.getClass().getName());
+        }
+    }
+
+    private void emit(int value) {
+        if (codeSize == code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[codeSize++] = value;
+    }
+}
@@ -0,0 +1,1638 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.*;
+
+/*
+    Walks the statements of one method and builds its shallow sequence diagram (SequenceTemplate). Calls into
+    other methods of the project are not followed, so the walk never leaves the method's own syntax tree.
+ */
+class SequenceDiagramBuilder {
+    private ProjectCollector project;
+    private Map<JSONArray, SequenceTemplate.PendingCall> pendingCalls;
+    // names of the classes the walk looked at, found or not
+    private Set<String> lookedUpClasses;
+    // resolves the objects calls are made on, null to only match names
+    private TypeResolver.Request resolution;
+    // the string table of the project's classes, for the names and types of their methods
+    private StringTable strings;
+
+    SequenceDiagramBuilder(ProjectCollector project, TypeResolver.Request resolution) {
+        this.project = project;
+        this.strings = project.getStrings();
+        this.resolution = resolution;
+        this.pendingCalls = new IdentityHashMap<JSONArray, SequenceTemplate.PendingCall>();
+        this.lookedUpClasses = new HashSet<String>();
+    }
+
+    SequenceTemplate build(Method m, GraphElement ge){
+        lookedUpClasses.add(ge.getClassName());
+        JSONArray calls = new JSONArray();
+        for(Node newNode:m.getMethodCall()){
+            JSONObject temp = initSeqJSON(newNode,m,ge);
+            if(temp==null){
+                continue;
+            }
+            if(temp.has("sep")){
+                moveFullSize((JSONArray) temp.get("sep"), calls);
+            }else if(temp.has("cond")){
+                moveFullSize((JSONArray) temp.get("cond"), calls);
+                if(temp.has("stmt")){
+                    calls.put(temp.get("stmt"));
+                }
+            }else if(checkJSONFullSize(temp)){
+                calls.put(temp);
+            }
+        }
+        return new SequenceTemplate(calls, pendingCalls, lookedUpClasses);
+    }
+
+    /*
+        The symbol lookups of the walk, they go through here so the template knows which classes it was
+        built from
+     */
+    private GraphElement lookupClass(String name){
+        lookedUpClasses.add(name);
+        return project.getTargetClass(name);
+    }
+
+    private Method lookupMethod(GraphElement ge, String name, GraphElement providedClass){
+        if(ge!=null){
+            lookedUpClasses.add(ge.getClassName());
+        }
+        // the extended classes getTargetMethod may search
+        Set<String> visited = new HashSet<String>();
+        GraphElement extended = providedClass;
+        while(extended!=null && extended.getInh().size()>0){
+            String extendedName = extended.getInh().iterator().next();
+            if(!visited.add(extendedName)){
+                break;
+            }
+            lookedUpClasses.add(extendedName);
+            extended = project.getTargetClass(extendedName);
+        }
+        return project.getTargetMethod(ge, name, providedClass);
+    }
+
+    private String lookupFieldType(GraphElement ge, String name){
+        if(ge!=null){
+            lookedUpClasses.add(ge.getClassName());
+        }
+        return project.getFieldType(ge, name);
+    }
+
+    /*
+    moves the complete call objects of from to to, the others are dropped; every element is taken out of
+    from, so a loop until from is empty always ends
+     */
+    static void moveFullSize(JSONArray from, JSONArray to){
+        while(from.length()!=0){
+            Object next = from.remove(0);
+            if(next instanceof JSONObject && checkJSONFullSize((JSONObject) next)){
+                to.put(next);
+            }
+        }
+    }
+
+    /*
+    recursive method to retrieve all function calls from one block of statement/expression
+     */
+    private JSONObject initSeqJSON(Node node, Method m, GraphElement ge){
+        JSONObject json = new JSONObject();
+        if(node instanceof MethodCallExpr){
+            int level = countCalls(node);
+            JSONArray temp ;
+            if(level==0){
+                temp = getJSONFuncCall((MethodCallExpr) node, m, ge);
+            }else{
+                temp = getJSONNestedFuncCall( node, m, ge, level);
+            }
+            if(temp!=null&&temp.length()!=0){
+                json.put("sep",temp);
+                return json;
+            }
+            return null;
+        }else if(node instanceof ForEachStmt){
+            return getJSONForEach(node,m,ge);
+        }else if(node instanceof ForStmt){
+            return getJSONFor(node,m,ge);
+        }else if(node instanceof IfStmt){
+            return getJSONIf(node,m,ge);
+        }else if(node instanceof WhileStmt){
+            return getJSONWhile(node,m,ge);
+        }else if(node instanceof SwitchStmt){
+            return getJSONSwitch(node,m,ge);
+        }else if(node instanceof VariableDeclarationExpr){
+            return getVarDeclaCall(node,m,ge);
+        }else if(node instanceof ThrowStmt){
+            return getThrowCall(node,m,ge);
+        }else if(node instanceof Expression){
+            if(node.getChildNodes()!=null && !node.getChildNodes().equals(Collections.emptyList())){
+                for(Node n: node.getChildNodes()){
+                    if(n instanceof MethodCallExpr || n instanceof Statement){
+                        return initSeqJSON(n,m,ge);
+                    }
+                }
+            }
+        }
+        //we can not support else
+        //return null indicates the errors like no such class in the project directory, no such method exist etc
+        return null;
+    }
+
+    /*
+    recursive method look for initial object call
+     */
+    private String normalCall(Node m){
+        if(m instanceof MethodCallExpr){
+            if(((MethodCallExpr) m).getScope().equals(Optional.empty())){
+                return m.toString();
+            }
+            return normalCall(((MethodCallExpr) m).getScope().get());
+        }
+        return m.toString();
+    }
+
+    /*
+    the class of the object the call is made on. With symbol resolution the solver is asked first, it also knows
+    inherited fields and fields of other objects. Name matching is the fallback, also for types outside the
+    project (e.g. System.out), which it handles the same as before
+     */
+    private String getCalleeClass(MethodCallExpr mc, String variableName, Method m, GraphElement ge){
+        if(resolution!=null){
+            Expression scope = getInitialScope(mc);
+            if(scope instanceof NameExpr || scope instanceof FieldAccessExpr){
+                String type = resolution.resolveType(scope);
+                if(type!=null && lookupClass(type)!=null){
+                    return type;
+                }
+            }
+        }
+        return checkVarFromParam(variableName,mc,m,ge);
+    }
+
+    /*
+    the expression normalCall names, null when the chain starts with a call without scope
+     */
+    private Expression getInitialScope(MethodCallExpr mc){
+        Expression scope = mc;
+        while(scope instanceof MethodCallExpr){
+            if(!((MethodCallExpr) scope).getScope().isPresent()){
+                return null;
+            }
+            scope = ((MethodCallExpr) scope).getScope().get();
+        }
+        return scope;
+    }
+
+    /*
+    look if variable is from method parameters
+    if yes, return the callee class name
+    if no, look from 1. local variables visible at the call site; 2. fields; 3. name is the Class name;
+     */
+    private String checkVarFromParam(String name, Node site, Method m, GraphElement ge){
+        boolean field = name.contains("this.");
+        if(field){
+            name = name.substring(5,name.length());
+        }
+        for(int i=0;i<m.getParamCount();i++){
+            if(m.getParamName(i, strings).equals(name)){
+                return m.getParamType(i, strings);
+            }
+        }
+        //case: local instance of other class, a local hides a field of the same name
+        LocalVariableTable locals = m.getLocalVariables();
+        if(!field && locals!=null){
+            String localType = locals.getType(name, site);
+            if(localType!=null){
+                return localType;
+            }
+        }
+        //no case 1: check fields
+        String fieldType = lookupFieldType(ge, name);
+        if(fieldType!=null){
+            return fieldType;
+        }
+        //no case 2: check from whole project
+        if(lookupClass(name)!=null){
+            return name;
+        }
+        //not exist in the current project, ignore
+        return null;
+    }
+
+    /*
+    this method is called only for normal function call(type is MethodCallExp)
+    check is the method self-recursive
+     */
+    private boolean isRecursive(MethodCallExpr mc, Method m){
+        return mc.getNameAsString().equals(m.getName(strings));
+    }
+
+    /*
+    recursive helper method to retrieve the method name from Node
+     */
+    private String helpGetCallerName(String variableName, Node node){
+        if(node instanceof MethodCallExpr){
+            if(((MethodCallExpr) node).getScope()==null|| ((MethodCallExpr) node).getScope().equals(Optional.empty())){
+                return null;
+            }
+            if(((MethodCallExpr) node).getScope().get().toString().equals(variableName)){
+                return ((MethodCallExpr) node).getNameAsString();
+            }
+            return helpGetCallerName(variableName,((MethodCallExpr) node).getScope().get());
+        }
+        return null;
+    }
+
+    /*
+    helper method for generating "param":{ "type":type, "name":name }
+     */
+    private JSONArray getParam(Method m){
+        JSONArray jarr = new JSONArray();
+        if(m==null){return null;}
+        for(int i=0;i<m.getParamCount();i++){
+            JSONObject json = new JSONObject();
+            json.put("type",m.getParamType(i, strings));
+            json.put("name",m.getParamName(i, strings));
+            jarr.put(json);
+        }
+        return jarr;
+    }
+
+    /*
+    helper method to count the number of times nested method being called
+    the nested count depends on the "." on the line statement
+    *e.g.
+    0 represents the case of foo();
+    1 represents the case of a.foo() or foo().boo()
+     */
+    private int countCalls(Node m){
+        if(m instanceof MethodCallExpr){
+            if(((MethodCallExpr) m).getScope().equals(Optional.empty())){
+                return 0;
+            }
+            return countCalls(((MethodCallExpr) m).getScope().get())+1;
+        }
+        return 0;
+    }
+
+    /*
+    specific helper for case a.foo() and foo().boo() etc.
+    collect the json object after the first "." for nested call
+     */
+    private JSONObject getNextLevelCallJSON(GraphElement currClass, GraphElement nextClass, Method currMethod, Method nextMethod, MethodCallExpr mc){
+        JSONObject json = new JSONObject();
+        json.put("type",(isRecursive(mc,currMethod))?"self":"none");
+        json.put("callerClass",currClass.getClassName());
+        json.put("calleeClass",nextClass.getClassName());
+        if(json.has("callerClass") && !json.has("calleeClass")){return null;}
+        json.put("callerName", nextMethod.getName(strings));
+        json.put("returnType",(nextMethod.getReturnType(strings).equals("void"))?"":nextMethod.getReturnType(strings));
+        json.put("param", getParam(nextMethod));
+        putMethodCallTree(json,nextMethod,nextClass);
+
+        return json;
+    }
+
+    /*
+    specific helper method for case of System.out.println() etc. which the callee class is not
+    part of the project directory but a valid function call
+     */
+    private JSONArray traverseTreeSys(Node node,Method m, GraphElement ge){
+        JSONArray reverseArr = new JSONArray();
+        Node child = node;
+        while(child instanceof BinaryExpr || child instanceof MethodCallExpr){
+            if(child instanceof MethodCallExpr){
+                JSONObject temp= initSeqJSON(child,m,ge);
+                if(temp!=null){
+                    if(temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        moveFullSize(jj, reverseArr);
+                    }else{
+                        if(checkJSONFullSize(temp)){
+                            reverseArr.put(temp);
+                        }
+                    }
+                }
+            }else if(child.getChildNodes().get(1)instanceof MethodCallExpr){
+                JSONObject temp= initSeqJSON(child.getChildNodes().get(1),m,ge);
+                if(temp!=null){
+                    if(temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        while (jj.length()!=0){
+                            reverseArr.put(jj.remove(0));
+                        }
+                    }else{
+                        if(checkJSONFullSize(temp)){
+                            reverseArr.put(temp);
+                        }
+                    }
+                }
+            }else if(child.getChildNodes().get(0)instanceof MethodCallExpr){
+                JSONObject temp= initSeqJSON(child.getChildNodes().get(0),m,ge);
+                if(temp!=null){
+                    if(temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        moveFullSize(jj, reverseArr);
+                    }else{
+                        if(checkJSONFullSize(temp)){
+                            reverseArr.put(temp);
+                        }
+                    }
+                }
+            }
+            child=child.getChildNodes().get(0);
+        }
+        return reverseArr;
+    }
+
+    /*
+    specific helper for function calls in condition case
+     */
+    private JSONArray traverseTreeCond(Node node,Method m, GraphElement ge){
+        JSONArray reverseArr = new JSONArray();
+        for(Node child:node.getChildNodes()){
+            while(child instanceof BinaryExpr || child instanceof MethodCallExpr){
+                if(child instanceof MethodCallExpr){
+                    JSONObject temp= initSeqJSON(child,m,ge);
+                    if(temp!=null&&temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        while(jj.length()!=0){
+                            reverseArr.put(jj.remove(0));
+                        }
+                    }
+                }else if(child.getChildNodes().get(1)instanceof MethodCallExpr){
+                    JSONObject temp= initSeqJSON(child.getChildNodes().get(1),m,ge);
+                    if(temp!=null&&temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        while(jj.length()!=0){
+                            reverseArr.put(jj.remove(0));
+                        }
+                    }
+                }else if(child.getChildNodes().get(0)instanceof MethodCallExpr){
+                    JSONObject temp= initSeqJSON(child.getChildNodes().get(0),m,ge);
+                    if(temp!=null&&temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        while(jj.length()!=0){
+                            reverseArr.put(jj.remove(0));
+                        }
+                    }
+                }
+                
+                child=child.getChildNodes().get(0);
+            }
+        }
+        return reverseArr;
+    }
+
+    /*
+    retrieve all if condition function call
+     */
+    private JSONArray findAllIfConditions(Node node,Method m, GraphElement ge){
+        JSONArray reverseArr = new JSONArray();
+        for(Node child:node.getChildNodes()){
+            if(child instanceof BinaryExpr || child instanceof IfStmt){
+                JSONArray jarr = retrieveFuncCallinsideIfCond(child,m,ge);
+                JSONArray j = handleIfRecursion(jarr);
+                while(j.length()!=0){
+                    reverseArr.put(j.remove(0));
+                }
+            }else if(child instanceof MethodCallExpr){
+                JSONObject temp = initSeqJSON(child,m,ge);
+                if(temp!=null&&temp.has("sep")){
+                    JSONArray jj = (JSONArray) temp.get("sep");
+                    moveFullSize(jj, reverseArr);
+                }
+            }
+        }
+        return reverseArr;
+    }
+
+    /*
+    helper of above method
+     */
+    private JSONArray retrieveFuncCallinsideIfCond(Node node, Method m, GraphElement ge){
+        JSONArray jarr = new JSONArray();
+        for(Node child:node.getChildNodes()){
+            if(child instanceof BinaryExpr || child instanceof MethodCallExpr){
+                if(child instanceof MethodCallExpr){
+                    if(initSeqJSON(child,m,ge)!=null){
+                        JSONObject temp = initSeqJSON(child,m,ge);
+                        if(temp!=null&&temp.has("sep")){
+                            JSONArray jj = (JSONArray) temp.get("sep");
+                            moveFullSize(jj, jarr);
+                        }
+                    }
+                }else{
+                    for(Node methodNode:child.getChildNodes()){
+                        if(methodNode instanceof MethodCallExpr){
+                            if(initSeqJSON(methodNode,m,ge)!=null){
+                                JSONObject temp = initSeqJSON(methodNode,m,ge);
+                                if(temp!=null&&temp.has("sep")){
+                                    JSONArray jj = (JSONArray) temp.get("sep");
+                                    moveFullSize(jj, jarr);
+                                }
+                            }
+                        }
+                    }
+                }
+            }else if(child instanceof IfStmt){
+                if(retrieveFuncCallinsideIfCond(child,m,ge)!=null){
+                    jarr.put(retrieveFuncCallinsideIfCond(child,m,ge));
+                }
+            }else if(child instanceof MethodCallExpr){
+                if(initSeqJSON(child,m,ge)!=null){
+                    JSONObject temp = initSeqJSON(child,m,ge);
+                    if(temp.has("sep")){
+                        JSONArray jj = (JSONArray) temp.get("sep");
+                        moveFullSize(jj, jarr);
+                    }
+                }
+            }
+        }
+        return jarr;
+    }
+
+    private JSONArray handleIfRecursion(JSONArray jarr){
+        JSONArray collection = new JSONArray();
+        while(jarr.length()!=0){
+            if(jarr.get(0)instanceof JSONObject){
+                collection.put(jarr.remove(0));
+            }else{
+                JSONArray j = (JSONArray) jarr.remove(0);
+                j=handleIfRecursion(j);
+                while(j.length()!=0){
+                    collection.put(j.remove(0));
+                }
+            }
+        }
+        return collection;
+    }
+
+    /*
+    retrieve all function calls for if or else statement, boolean then indicates which statement we want
+    then->true: retrieve then statement
+    then->false: retrieve else statement
+     */
+    private JSONArray getThenAndElseStmtCondFunc(Node node, Method m, GraphElement ge, boolean then){
+        //condition has function calls
+        List<Node> list = null;
+        if(then){
+            list = ((IfStmt) node).getThenStmt().getChildNodes();
+        }else{
+            if(((IfStmt)node).getElseStmt()!=null&& !((IfStmt)node).getElseStmt().equals(Optional.empty())){
+                list = ((IfStmt) node).getElseStmt().get().getChildNodes();
+            }else{
+                return new JSONArray();
+            }
+        }
+        JSONArray jarr = new JSONArray();
+        for(Node n:list){
+            if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                    || n instanceof ForEachStmt || n instanceof  ForStmt || n instanceof ThrowStmt){
+                JSONObject temp = initSeqJSON(n,m,ge);
+                if(temp!=null){
+                    if(temp.has("cond")){
+                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                        while(nextLevelCond.length()!=0){
+                            jarr.put(nextLevelCond.remove(0));
+                        }
+                        if(temp.has("stmt")){
+                            jarr.put(temp.get("stmt"));
+                        }
+                    }else{
+                        if(temp.has("sep")){
+                            JSONArray sep = (JSONArray) temp.get("sep");
+                            while(sep.length()!=0){
+                                jarr.put(sep.remove(0));
+                            }
+                        }else{
+                            jarr.put(temp);
+                        }
+                    }
+                }
+            }else{
+                if(!n.getChildNodes().equals(Collections.emptyList())){
+                    JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            while(nextLevelCond.length()!=0){
+                                jarr.put(nextLevelCond.remove(0));
+                            }
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                while(sep.length()!=0){
+                                    jarr.put(sep.remove(0));
+                                }
+                            }else{
+                                jarr.put(temp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return jarr;
+    }
+
+    /*
+    helper method to handle foreach statement, return json object of the whole foreach statement block
+     */
+    private JSONObject getJSONForEach(Node node, Method m,GraphElement ge){
+        JSONObject json = new JSONObject();
+        ForEachStmt fe = (ForEachStmt)node;
+        JSONArray cond = checkIterable(fe,m,ge);
+        if(cond.length()!=0){
+            //function calls happened inside of foreach condition
+            JSONArray condCall = new JSONArray();
+            while(cond.length()!=0){
+                condCall.put(cond.remove(0));
+            }
+            json.put("cond",condCall);
+            JSONObject nj = new JSONObject();
+            nj.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((ForEachStmt) node).getBody().getChildNodes()){
+                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                        || n instanceof ForEachStmt || n instanceof  ForStmt){
+                    JSONObject temp = initSeqJSON(n,m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            moveFullSize(nextLevelCond, jarr);
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }else {
+                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
+                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, jarr);
+                                if(temp.has("stmt")){
+                                    jarr.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                nj.put("call",jarr);
+                json.put("stmt",nj);
+                return json;
+            }else{
+                return json;
+            }
+        }else{
+            json.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((ForEachStmt) node).getBody().getChildNodes()){
+                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                        || n instanceof ForEachStmt || n instanceof  ForStmt){
+                    JSONObject temp = initSeqJSON(n,m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            moveFullSize(nextLevelCond, jarr);
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }else{
+                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
+                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, jarr);
+                                if(temp.has("stmt")){
+                                    jarr.put(temp.get("stmt"));
+                                }
+                            }else {
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                json.put("call",jarr);
+                return json;
+            }else{
+                return json;
+            }
+        }
+    }
+
+    /*
+    helper method to handle while statement, return json object of the whole while statement block
+     */
+    private JSONObject getJSONWhile(Node node, Method m, GraphElement ge){
+        JSONObject json = new JSONObject();
+        WhileStmt fe = (WhileStmt) node;
+        JSONArray cond = traverseTreeCond(fe,m,ge);
+        if(cond.length()!=0){
+            //function calls happened inside of for condition
+            JSONArray condCall = new JSONArray();
+            while(cond.length()!=0){
+                condCall.put(cond.remove(0));
+            }
+            json.put("cond",condCall);
+            JSONObject nj = new JSONObject();
+            nj.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((WhileStmt) node).getBody().getChildNodes()){
+                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                        || n instanceof ForEachStmt || n instanceof  ForStmt){
+                    JSONObject temp = initSeqJSON(n,m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            moveFullSize(nextLevelCond, jarr);
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }else{
+                    if(!n.getChildNodes().equals(Collections.emptyList())){
+                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                while(nextLevelCond.length()!=0){
+                                    jarr.put(nextLevelCond.remove(0));
+                                }
+                                if(temp.has("stmt")){
+                                    jarr.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                nj.put("call",jarr);
+                json.put("stmt", nj);
+                return json;
+            }else{
+                return json;
+            }
+        }else{
+            json.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((WhileStmt) node).getBody().getChildNodes()){
+                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                        || n instanceof ForEachStmt || n instanceof  ForStmt){
+                    JSONObject temp = initSeqJSON(n,m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            moveFullSize(nextLevelCond, jarr);
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }else{
+                    if(!n.getChildNodes().equals(Collections.emptyList())){
+                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, jarr);
+                                if(temp.has("stmt")){
+                                    jarr.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(json)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                json.put("call",jarr);
+                return json;
+            }else{
+                return json;
+            }
+        }
+    }
+
+    /*
+    helper method to handle if statement, return json object of the whole if statement block
+    In sequence diagram, if statement with no else case is considered as "opt"; if statement
+    with else case or multiple else if statement considered as "alt"
+     */
+    private JSONObject getJSONIf(Node node, Method m, GraphElement ge){
+        JSONObject json  = new JSONObject();
+        IfStmt fe = (IfStmt) node;
+        JSONArray cond = findAllIfConditions(fe,m,ge);
+        if(cond.length()!=0){
+            //function calls happened inside of if condition
+            JSONArray condCall = new JSONArray();
+            while(cond.length()!=0){
+                condCall.put(cond.remove(0));
+            }
+            json.put("cond",condCall);
+            JSONObject nj = new JSONObject();
+            String type = (((IfStmt) node).getElseStmt().equals(Optional.empty()))?"opt":"alt";
+            nj.put("type", type);
+            if(type.equals("opt")){
+                JSONArray outsider = new JSONArray();
+                JSONArray jarr = new JSONArray();
+                for(Node n:((IfStmt) node).getThenStmt().getChildNodes()){
+                    if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                            || n instanceof ForEachStmt || n instanceof  ForStmt){
+                        JSONObject temp = initSeqJSON(n,m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, jarr);
+                                if(temp.has("stmt")){
+                                    JSONArray arr = (JSONArray) temp.get("stmt");
+                                    if (arr.length()!=0){
+                                        if(checkJSONFullSize((JSONObject) arr.get(0))){
+                                            jarr.put(arr.remove(0));
+                                        }
+                                    }
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }else{
+                        if(!n.getChildNodes().equals(Collections.emptyList())){
+                            JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                            if(temp!=null){
+                                if(temp.has("cond")){
+                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                    moveFullSize(nextLevelCond, jarr);
+                                    if(temp.has("stmt")){
+                                        JSONArray arr = (JSONArray) temp.get("stmt");
+                                        if(arr.length()!=0){
+                                            if(checkJSONFullSize((JSONObject) arr.get(0))){
+                                                jarr.put(arr.remove(0));
+                                            }
+                                        }
+                                    }
+                                }else{
+                                    if(temp.has("sep")){
+                                        JSONArray sep = (JSONArray) temp.get("sep");
+                                        moveFullSize(sep, jarr);
+                                    }else{
+                                        if(checkJSONFullSize(temp)){
+                                            jarr.put(temp);
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                if(jarr.length()!=0){
+                    outsider.put(jarr);
+                    nj.put("call",outsider);
+                    json.put("stmt",nj);
+                    return json;
+                }else{
+                    return json;
+                }
+            }else{
+                //case alt
+                JSONArray outsider = new JSONArray();
+                while (!((IfStmt) node).getElseStmt().equals(Optional.empty()) &&((IfStmt) node).getElseStmt().get() instanceof IfStmt){
+                    JSONArray jarr = getThenAndElseStmtCondFunc(node,m,ge,true);
+                    if(jarr.length()!=0){
+                        outsider.put(jarr);
+                    }
+                    node = ((IfStmt) node).getElseStmt().get();
+                }
+                //the bottom level then and else case need to retrieve
+                JSONArray jarr1 = getThenAndElseStmtCondFunc(node,m,ge,true);
+                JSONArray jarr2 = getThenAndElseStmtCondFunc(node,m,ge,false);
+                if(jarr1.length()!=0){
+                    outsider.put(jarr1);
+                }
+                if(jarr2.length()!=0){
+                    outsider.put(jarr2);
+                }
+                if(outsider.length()!=0){
+                    nj.put("call",outsider);
+                    json.put("stmt",nj);
+                    return json;
+                }
+                return json;
+            }
+        }else{
+            String type = (((IfStmt) node).getElseStmt().equals(Optional.empty()))?"opt":"alt";
+            json.put("type", type);
+            if(type.equals("opt")){
+                JSONArray outsider = new JSONArray();
+                JSONArray jarr = new JSONArray();
+                for(Node n:((IfStmt) node).getThenStmt().getChildNodes()){
+                    if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                            || n instanceof ForEachStmt || n instanceof  ForStmt){
+                        JSONObject temp = initSeqJSON(n,m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, jarr);
+                                if(temp.has("stmt")){
+                                    JSONArray arr = (JSONArray) temp.get("stmt");
+                                    if(arr.length()!=0){
+                                        if(checkJSONFullSize((JSONObject) arr.get(0))){
+                                            jarr.put(arr.remove(0));
+                                        }
+                                    }
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }else{
+                        if(!n.getChildNodes().equals(Collections.emptyList())){
+                            JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                            if(temp!=null){
+                                if(temp.has("cond")){
+                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                    moveFullSize(nextLevelCond, jarr);
+                                    if(temp.has("stmt")){
+                                        JSONArray arr = (JSONArray) temp.get("stmt");
+                                        if(arr.length()!=0){
+                                            if(checkJSONFullSize((JSONObject) arr.get(0))){
+                                                jarr.put(arr.remove(0));
+                                            }
+                                        }
+                                    }
+                                }else{
+                                    if(temp.has("sep")){
+                                        JSONArray sep = (JSONArray) temp.get("sep");
+                                        moveFullSize(sep, jarr);
+                                    }else{
+                                        if(checkJSONFullSize(temp)){
+                                            jarr.put(temp);
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                if(jarr.length()!=0){
+                    outsider.put(jarr);
+                    json.put("call",outsider);
+                    return json;
+                }else{
+                    return json;
+                }
+            }else{
+                //case alt
+                JSONArray outsider = new JSONArray();
+                while (!((IfStmt) node).getElseStmt().equals(Optional.empty()) &&((IfStmt) node).getElseStmt().get() instanceof IfStmt){
+                    JSONArray jarr = getThenAndElseStmtCondFunc(node,m,ge,true);
+                    if(jarr.length()!=0){
+                        if(checkJSONFullSize((JSONObject) outsider.get(0))){
+                            outsider.put(jarr);
+                        }
+                    }
+                    node = ((IfStmt) node).getElseStmt().get();
+                }
+                //the bottom level then and else case need to retrieve
+                JSONArray jarr1 = getThenAndElseStmtCondFunc(node,m,ge,true);
+                JSONArray jarr2 = getThenAndElseStmtCondFunc(node,m,ge,false);
+                if(jarr1.length()!=0){
+                    outsider.put(jarr1);
+                }
+                if(jarr2.length()!=0){
+                    outsider.put(jarr2);
+                }
+                if(outsider.length()!=0){
+                    json.put("call",outsider);
+                    return json;
+                }
+                return json;
+            }
+        }
+    }
+
+    /*
+    helper method to handle for statement, return json object of the whole for statement block
+     */
+    private JSONObject getJSONFor(Node node, Method m, GraphElement ge){
+        JSONObject json = new JSONObject();
+        ForStmt fe = (ForStmt) node;
+        JSONArray cond = traverseTreeCond(fe,m,ge);
+        if(cond.length()!=0){
+            //function calls happened inside of for condition
+            JSONArray condCall = new JSONArray();
+            while(cond.length()!=0){
+                condCall.put(cond.remove(0));
+            }
+            json.put("cond",condCall);
+            JSONObject nj = new JSONObject();
+            nj.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((ForStmt) node).getBody().getChildNodes()){
+                if(n instanceof IfStmt || n instanceof SwitchStmt || n instanceof WhileStmt
+                        || n instanceof ForEachStmt || n instanceof  ForStmt){
+                    JSONObject temp = initSeqJSON(n,m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            while(nextLevelCond.length()!=0){
+                                jarr.put(nextLevelCond.remove(0));
+                            }
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }else{
+                    if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
+                        JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                while(nextLevelCond.length()!=0){
+                                    jarr.put(nextLevelCond.remove(0));
+                                }
+                                if(temp.has("stmt")){
+                                    jarr.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, jarr);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        jarr.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                nj.put("call",jarr);
+                json.put("stmt",nj);
+                return json;
+            }else{
+                return json;
+            }
+        }else{
+            json.put("type","loop");
+            JSONArray jarr = new JSONArray();
+            for(Node n:((ForStmt) node).getBody().getChildNodes()){
+                if(n.getChildNodes()!=null && !n.getChildNodes().equals(Collections.emptyList())){
+                    JSONObject temp = initSeqJSON(n.getChildNodes().get(0),m,ge);
+                    if(temp!=null){
+                        if(temp.has("cond")){
+                            JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                            while(nextLevelCond.length()!=0){
+                                jarr.put(nextLevelCond.remove(0));
+                            }
+                            if(temp.has("stmt")){
+                                jarr.put(temp.get("stmt"));
+                            }
+                        }else{
+                            if(temp.has("sep")){
+                                JSONArray sep = (JSONArray) temp.get("sep");
+                                moveFullSize(sep, jarr);
+                            }else{
+                                if(checkJSONFullSize(temp)){
+                                    jarr.put(temp);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if(jarr.length()!=0){
+                json.put("call",jarr);
+                return json;
+            }else{
+                return null;
+            }
+        }
+    }
+
+    /*
+    helper method to handle switch statement, return json object of the whole switch statement block
+     */
+    private JSONObject getJSONSwitch(Node node, Method m, GraphElement ge){
+        JSONObject json = new JSONObject();
+        SwitchStmt fe = (SwitchStmt) node;
+        JSONArray cond = traverseTreeSwitch(fe,m,ge);
+        if(cond.length()!=0){
+            //function calls happened inside of for condition
+            JSONArray condCall = new JSONArray();
+            while(cond.length()!=0){
+                condCall.put(cond.remove(0));
+            }
+            json.put("cond",condCall);
+            JSONObject nj =new JSONObject();
+            nj.put("type", "alt");
+            JSONArray jarr = new JSONArray();
+            for(SwitchEntry n:((SwitchStmt) node).getEntries()){
+                JSONArray insider= new JSONArray();
+                for(Statement s:n.getStatements()){
+                    if(s instanceof IfStmt || s instanceof SwitchStmt || s instanceof WhileStmt
+                            || s instanceof ForEachStmt || s instanceof  ForStmt){
+                        JSONObject temp = initSeqJSON(s,m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                while(nextLevelCond.length()!=0){
+                                    insider.put(nextLevelCond.remove(0));
+                                }
+                                if(temp.has("stmt")){
+                                    insider.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, insider);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        insider.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }else{
+                        if(!s.getChildNodes().equals(Collections.emptyList())){
+                            for(Node child:s.getChildNodes()){
+                                JSONObject temp = initSeqJSON(child,m,ge);
+                                if(temp!=null){
+                                    if(temp.has("cond")){
+                                        JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                        while(nextLevelCond.length()!=0){
+                                            insider.put(nextLevelCond.remove(0));
+                                        }
+                                        if(temp.has("stmt")){
+                                            insider.put(temp.get("stmt"));
+                                        }
+                                    }else{
+                                        if(temp.has("sep")){
+                                            JSONArray sep = (JSONArray) temp.get("sep");
+                                            moveFullSize(sep, insider);
+                                        }else{
+                                            if(checkJSONFullSize(temp)){
+                                                insider.put(temp);
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                if(insider.length()!=0){
+                    jarr.put(insider);
+                }
+            }
+            if(jarr.length()!=0){
+                nj.put("call",jarr);
+                json.put("stmt",nj);
+                return json;
+            }else{
+                return json;
+            }
+        }else {
+            json.put("type", "alt");
+            JSONArray jarr = new JSONArray();
+            for(SwitchEntry n:((SwitchStmt) node).getEntries()){
+                JSONArray insider= new JSONArray();
+                for(Statement s:n.getStatements()){
+                    JSONObject temp;
+                    if(s instanceof IfStmt || s instanceof SwitchStmt || s instanceof WhileStmt
+                            || s instanceof ForEachStmt || s instanceof  ForStmt){
+                        temp = initSeqJSON(s,m,ge);
+                        if(temp!=null){
+                            if(temp.has("cond")){
+                                JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                moveFullSize(nextLevelCond, insider);
+                                if(temp.has("stmt")){
+                                    insider.put(temp.get("stmt"));
+                                }
+                            }else{
+                                if(temp.has("sep")){
+                                    JSONArray sep = (JSONArray) temp.get("sep");
+                                    moveFullSize(sep, insider);
+                                }else{
+                                    if(checkJSONFullSize(temp)){
+                                        insider.put(temp);
+                                    }
+                                }
+                            }
+                        }
+                    }else {
+                        for(Node child:s.getChildNodes()){
+                            temp = initSeqJSON(child,m,ge);
+                            if(temp!=null){
+                                if(temp.has("cond")){
+                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                    moveFullSize(nextLevelCond, insider);
+                                    if(temp.has("stmt")){
+                                        insider.put(temp.get("stmt"));
+                                    }
+                                }else{
+                                    if(temp.has("sep")){
+                                        JSONArray sep = (JSONArray) temp.get("sep");
+                                        moveFullSize(sep, insider);
+                                    }else{
+                                        if(checkJSONFullSize(temp)){
+                                            insider.put(temp);
+                                        }
+                                    }
+                                }
+                            }
+                        }
+
+                    }
+
+                }
+                if(insider.length()!=0){
+                    jarr.put(insider);
+                }
+            }
+            if(jarr.length()!=0){
+                json.put("call",jarr);
+                return json;
+            }else{
+                return null;
+            }
+        }
+    }
+
+    /*
+    helper method to handle normal function call statement, return json object of the whole foreach statement block
+     */
+    private JSONArray getJSONFuncCall(MethodCallExpr mc,Method m,GraphElement ge){
+        JSONArray jarr = new JSONArray();
+        JSONObject json = new JSONObject();
+        for (Node n:((MethodCallExpr)mc).getChildNodes()){
+            if((n instanceof MethodCallExpr|| n instanceof IfStmt) && moreThanOneMethodCallExp(mc, (MethodCallExpr) n)){
+                JSONObject tt = initSeqJSON(n,m,ge);
+                if(tt!=null&&tt.has("sep")){
+                    JSONArray tj = (JSONArray) tt.get("sep");
+                    moveFullSize(tj, jarr);
+                }
+            }
+        }
+        if(isRecursive(mc,m)){
+            //case recursive
+            json.put("type","self");
+            json.put("callerClass",ge.getClassName());
+            json.put("calleeClass",ge.getClassName());
+            json.put("callerName",m.getName(strings));
+            json.put("returnType",(m.getReturnType(strings).equals("void"))?"":m.getReturnType(strings));
+            json.put("param",getParam(m));
+            json.put("call",new JSONArray());
+            jarr.put(json);
+            return jarr;
+        }
+        json.put("type","none");
+        json.put("callerClass",ge.getClassName());
+        String variableName = normalCall(mc);
+        String calleeClass = getCalleeClass(mc,variableName,m,ge);
+        if(calleeClass==null){
+            //case local normal method call: foo()
+            String potentialMethodName = mc.getNameAsString();//possible method name
+            Method mt = lookupMethod(ge,potentialMethodName,null);
+            if(mt!=null){
+                json.put("calleeClass",ge.getClassName());
+                json.put("callerName", mt.getName(strings));
+                json.put("returnType",(mt.getReturnType(strings).equals("void"))?"":mt.getReturnType(strings));
+                json.put("param",getParam(mt));
+                //inside the method, it will call and redirect us to other classes/methodCall
+                putMethodCallTree(json,mt,ge);
+                if(checkJSONFullSize(json)){
+                    jarr.put(json);
+                }
+                return jarr;
+            }
+        }
+        if(calleeClass!=null && calleeClass.contains("<")){
+            calleeClass = removeBracket(calleeClass);
+        }
+        json.put("calleeClass",calleeClass);
+        String callerName = helpGetCallerName(variableName, mc);
+        json.put("callerName",callerName);
+        GraphElement nextClass = lookupClass(calleeClass);
+        if(nextClass!=null){//case car.a()
+            json = baseHelper(json,nextClass,callerName);
+        }else {
+            //case where new method declaration
+            for(Node n:mc.getChildNodes()){
+                if(n instanceof ObjectCreationExpr){
+                    calleeClass = ((ObjectCreationExpr) n).getTypeAsString();
+                    callerName = helpGetCallerName(variableName, mc);
+                    json.remove("calleeClass");
+                    json.remove("callerName");
+                    json.put("callerName",callerName);
+                    json.put("calleeClass",calleeClass);
+                    nextClass = lookupClass(calleeClass);
+                }
+            }
+            if(nextClass!=null){
+                json = baseHelper(json, nextClass, callerName);
+            }
+            //handle System.out.println(foo());
+            if(!mc.getChildNodes().equals(Collections.emptyList())){
+                for(Node n:mc.getChildNodes()){
+                    if(n instanceof MethodCallExpr){
+                        JSONObject temp = initSeqJSON(n,m,ge);
+                        if(temp!=null){
+                            JSONArray temparr = new JSONArray();
+                            if(temp.has("sep")){
+                                JSONArray jj = (JSONArray) temp.get("sep");
+                                moveFullSize(jj, temparr);
+                                json.put("call",temparr);
+                            }else{
+                                if(temp.has("cond")){
+                                    JSONArray nextLevelCond = (JSONArray) temp.get("cond");
+                                    while(nextLevelCond.length()!=0){
+                                        temparr.put(nextLevelCond.remove(0));
+                                    }
+                                    if(temp.has("stmt")){
+                                        temparr.put(temp.get("stmt"));
+                                    }
+                                }else{
+                                    if(temp.has("sep")){
+                                        JSONArray sep = (JSONArray) temp.get("sep");
+                                        moveFullSize(sep, temparr);
+                                    }else{
+                                        if(checkJSONFullSize(temp)){
+                                            temparr.put(temp);
+                                        }
+                                    }
+                                }
+                                json.put("call",temparr);
+                            }
+                        }
+                    }else if(n instanceof BinaryExpr){
+                        JSONArray sys = traverseTreeSys(n,m,ge);
+                        if(sys.length()!=0){
+                            json.put("call",sys);
+                        }
+                    }
+                }
+            } else{
+                json.put("call",new JSONArray());
+            }
+        }
+        if(json.has("callerClass") && !json.has("calleeClass")){
+            if(json.has("call")){
+                if(json.get("call") instanceof JSONArray){
+                    return (JSONArray) json.get("call");
+                }
+
+            }
+            return null;
+        }
+        if(checkJSONFullSize(json)){
+            jarr.put(json);
+        }
+        return jarr;
+    }
+
+    /*
+    helper method for nested function call: a.foo() and foo().boo()
+     */
+    private JSONArray getJSONNestedFuncCall(Node node,Method m,GraphElement ge, int level){
+        JSONArray jarray = new JSONArray();
+        Node child = node;
+        GraphElement currClass = ge;
+        GraphElement nextClass = null;
+        Method currMethod = m;
+        Method nextMethod = null;
+        for(int j = 1; j<level;j++){
+            if(child.getChildNodes()!=null && !child.getChildNodes().equals(Collections.emptyList())){
+                child = child.getChildNodes().get(0);
+            }
+        }
+        for(int i =0;i<level;i++){
+            if(i==0){
+                JSONArray temp = getJSONFuncCall((MethodCallExpr) node, m, ge);
+                if(temp!=null&&temp.length()!=0){
+                    moveFullSize(temp, jarray);
+                }
+                if(!child.getParentNode().equals(Optional.empty())){
+                    child = child.getParentNode().get();
+                }
+                if(child!=null && child instanceof MethodCallExpr){
+                    String variableName = normalCall(node);
+                    String callerName = helpGetCallerName(variableName, node);
+                    String calleeClass = getCalleeClass((MethodCallExpr) node,variableName,m,ge);
+                    if(calleeClass!=null && calleeClass.contains("<")){calleeClass= removeBracket(calleeClass);};
+                    nextClass = lookupClass(calleeClass);
+                    if(nextClass!=null){
+                        currMethod = lookupMethod(nextClass,callerName,null);
+                        if(currMethod==null){
+                            for(String s:nextClass.getInh()){
+                                GraphElement tempClass = lookupClass(s);
+                                currMethod = lookupMethod(tempClass,callerName,null);
+                            }
+                            if(currMethod==null){
+                                for(String s:nextClass.getImp()){
+                                    GraphElement tempClass = lookupClass(s);
+                                    currMethod = lookupMethod(tempClass,callerName,null);
+                                }
+                                if(currMethod==null){return null;}
+                            }
+                        }
+                        String nextClassName = currMethod.getReturnType(strings);
+                        String nextMethodName = ((MethodCallExpr) child).getNameAsString();
+                        nextClass = lookupClass(nextClassName);
+                        if(nextClass!=null){
+                            nextMethod = lookupMethod(nextClass,nextMethodName,nextClass);
+                        }
+                    }
+                }
+            }else{
+                if(child!=null && child instanceof MethodCallExpr && nextMethod != null){
+                    JSONObject temp = getNextLevelCallJSON(currClass, nextClass, currMethod, nextMethod, (MethodCallExpr) child);
+                    if(temp!=null){
+                        if(temp.has("sep")){
+                            JSONArray sep = (JSONArray) temp.get("sep");
+                            moveFullSize(sep, jarray);
+                        }else{
+                            if(checkJSONFullSize(temp)){
+                                jarray.put(temp);
+                            }
+                        }
+                    }
+                    String nextClassName = nextMethod.getReturnType(strings);
+                    String nextMethodName = ((MethodCallExpr) child).getNameAsString();
+                    nextClass = lookupClass(nextClassName);
+                    if(nextClass!=null){
+                        nextMethod = lookupMethod(nextClass,nextMethodName,null);
+                    }
+                    if(!child.getParentNode().equals(Optional.empty())){
+                        child = child.getParentNode().get();
+                    }
+                }
+            }
+        }
+
+        return jarray;
+    }
+
+    private JSONObject baseHelper(JSONObject json, GraphElement nextClass, String callerName){
+        Method nextMethod = lookupMethod(nextClass,callerName,null);
+        if(nextMethod==null){
+            //extended method
+            for(String s:nextClass.getInh()){
+                GraphElement tempClass = lookupClass(s);
+                nextMethod = lookupMethod(tempClass,callerName,null);
+                if(nextMethod!=null){
+                    nextClass = tempClass;
+                }
+            }
+            for(String s:nextClass.getImp()){
+                GraphElement tempClass = lookupClass(s);
+                nextMethod = lookupMethod(tempClass,callerName,null);
+                if(nextMethod!=null){
+                    nextClass = tempClass;
+                }
+            }
+            if(nextMethod==null){
+                return json;
+            }
+        }
+        json.put("returnType",(nextMethod.getReturnType(strings).equals("void"))?"":nextMethod.getReturnType(strings));
+        json.put("param", getParam(nextMethod));
+        putMethodCallTree(json,nextMethod,nextClass);
+        return json;
+    }
+
+    /*
+    calls into another method of the project are not expanded here, the "call" array is left empty and
+    recorded so that SequenceExpansion can fill it with the callee's own template later
+     */
+    private void putMethodCallTree(JSONObject json, Method m, GraphElement ge){
+        JSONArray call = new JSONArray();
+        json.put("call",call);
+        pendingCalls.put(call, new SequenceTemplate.PendingCall(m, ge));
+    }
+
+    /*
+    traverse and retrieve all function calls from switch statement condition
+     */
+    private JSONArray traverseTreeSwitch(Node node,Method m, GraphElement ge){
+        JSONArray reverseArr = new JSONArray();
+        for(Node child:node.getChildNodes()){
+            if(child instanceof MethodCallExpr){
+                JSONObject temp= initSeqJSON(child,m,ge);
+                if(temp!=null&&temp.has("sep")){
+                    JSONArray jj = (JSONArray) temp.get("sep");
+                    moveFullSize(jj, reverseArr);
+                }
+            }
+        }
+        return reverseArr;
+    }
+
+    /*
+    checker method for nested function calls. Check for number of function calls in one MethodCallExp
+    if the number of MethodCallExp in this child nodes is greater than 1, the argument of this function
+    call is also a function call
+     */
+    private boolean moreThanOneMethodCallExp(MethodCallExpr mc,MethodCallExpr n){
+
+        return !mc.getNameAsString().equals(n.getNameAsString());
+    }
+
+    /*
+    helper method to retrieve all function calls in foreach statement's condition
+     */
+    private JSONArray checkIterable(ForEachStmt node,Method m, GraphElement ge){
+        JSONArray reverseArr = new JSONArray();
+        Node child = node.getIterable();
+        JSONObject temp= initSeqJSON(child,m,ge);
+        if(temp!=null&&temp.has("sep")){
+            JSONArray jj = (JSONArray) temp.get("sep");
+            moveFullSize(jj, reverseArr);
+        }
+        return reverseArr;
+    }
+
+    private JSONObject getVarDeclaCall(Node node,Method m ,GraphElement ge){
+        JSONArray jar=findAllMethodCall(node,m,ge);
+        if(jar.length()!=0){
+            JSONObject json = new JSONObject();
+            json.put("sep",jar);
+            return json;
+        }
+        return new JSONObject();
+    }
+
+    private JSONArray findAllMethodCall(Node node, Method m,GraphElement ge){
+        JSONArray jarr = new JSONArray();
+        for(Node n:node.getChildNodes()){
+            if(n instanceof VariableDeclarationExpr || n instanceof VariableDeclarator){
+                JSONArray temp = findAllMethodCall(n,m,ge);
+                moveFullSize(temp, jarr);
+            }else if(n instanceof MethodCallExpr){
+                JSONObject json = initSeqJSON(n,m,ge);
+                if(json!=null&&json.has("sep")){
+                    JSONArray jj = (JSONArray) json.get("sep");
+                    moveFullSize(jj, jarr);
+                }
+            }
+        }
+        return jarr;
+    }
+
+    private JSONObject getThrowCall(Node node, Method m,GraphElement ge){
+        JSONArray jar=traverseThrowCall(node,m,ge);
+        if(jar.length()!=0){
+            JSONObject json = new JSONObject();
+            json.put("sep",jar);
+            return json;
+        }
+        return new JSONObject();
+    }
+
+    private JSONArray traverseThrowCall(Node node, Method m,GraphElement ge){
+        JSONArray jar = new JSONArray();
+        for(Node n:node.getChildNodes()){
+            if(n instanceof BinaryExpr || n instanceof ObjectCreationExpr){
+                JSONArray temp = traverseThrowCall(n,m,ge);
+                moveFullSize(temp, jar);
+            }else if(n instanceof MethodCallExpr){
+                JSONObject json = initSeqJSON(n,m,ge);
+                if(json!=null&&json.has("sep")){
+                    JSONArray jj = (JSONArray) json.get("sep");
+                    moveFullSize(jj, jar);
+                }
+            }
+        }
+        return jar;
+    }
+
+    static boolean checkJSONFullSize(JSONObject json){
+        return (json!=null&&json.has("type")&&json.has("callerClass")&&json.has("calleeClass")&&
+                json.has("callerName")&& json.has("returnType")&&json.has("call")&& json.has("param"))
+                || (json!=null&&json.has("type")&&json.has("call")&&(json.get("type").equals("loop")||json.get("type").equals("alt")||
+                json.get("type").equals("opt")));
+    }
+
+    private String removeBracket(String name){
+        int start = name.indexOf("<");
+        name = name.substring(0,start);
+        return name;
+    }
+}
@@ -0,0 +1,157 @@
+package com.program.analysis.app.representation;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+    Expands the sequence diagram of a method from the compact per method sequences using an explicit work queue
+    instead of recursion, so the stack use does not depend on the shape of the call graph.
+    - a call back into a method that is already on the current call path is marked as "self" and not expanded
+    - calls deeper than maxDepth, or any call once maxNodes calls were expanded, are marked as "truncated"
+ */
+class SequenceExpansion {
+    private CompactSequences sequences;
+    private SequenceOptions options;
+    private Deque<Frame> work;
+    private int expandedNodes;
+
+    SequenceExpansion(CompactSequences sequences, SequenceOptions options) {
+        this.sequences = sequences;
+        this.options = options;
+        this.work = new ArrayDeque<Frame>();
+    }
+
+    JSONArray expand(int sequenceId) {
+        JSONArray result = new JSONArray();
+        work.add(new Frame(sequenceId, result, null, null, 0));
+        // breadth first, so that when the node budget runs out the deepest calls are the ones cut off
+        while (!work.isEmpty()) {
+            Frame frame = work.pollFirst();
+            if (frame.isBackEdge(sequences)) {
+                frame.mark("type", "self");
+                continue;
+            }
+            if (frame.depth > options.getMaxDepth() || expandedNodes >= options.getMaxNodes()) {
+                frame.mark("truncated", true);
+                continue;
+            }
+            expandedNodes++;
+            if (sequences.getFailure(frame.sequence) != null) {
+                throw new IllegalStateException("Failed to generate the sequence diagram, " + sequences.getFailure(frame.sequence));
+            }
+            // every sequence is one array, its elements go straight into the target array
+            int pc = sequences.getStart(frame.sequence);
+            int length = sequences.getCode(pc + 1);
+            pc += 2;
+            for (int i = 0; i < length; i++) {
+                pc = decode(pc, frame, frame.target, null, null);
+            }
+        }
+        return result;
+    }
+
+    int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /*
+        Decode the value at pc and add it to the parent array, or to the parent object under key when the
+        parent array is null. Returns the position after the value.
+     */
+    private int decode(int pc, Frame frame, JSONArray array, JSONObject object, String key) {
+        Object value;
+        int op = sequences.getCode(pc);
+        switch (op) {
+            case CompactSequences.ARRAY: {
+                int length = sequences.getCode(pc + 1);
+                JSONArray child = new JSONArray();
+                pc += 2;
+                for (int i = 0; i < length; i++) {
+                    pc = decode(pc, frame, child, null, null);
+                }
+                value = child;
+                break;
+            }
+            case CompactSequences.OBJECT: {
+                int length = sequences.getCode(pc + 1);
+                JSONObject child = new JSONObject();
+                pc += 2;
+                for (int i = 0; i < length; i++) {
+                    String childKey = sequences.getString(sequences.getCode(pc));
+                    pc = decode(pc + 1, frame, null, child, childKey);
+                }
+                value = child;
+                break;
+            }
+            case CompactSequences.STRING:
+                value = sequences.getString(sequences.getCode(pc + 1));
+                pc += 2;
+                break;
+            case CompactSequences.INT:
+                value = sequences.getCode(pc + 1);
+                pc += 2;
+                break;
+            case CompactSequences.TRUE:
+            case CompactSequences.FALSE:
+                value = op == CompactSequences.TRUE;
+                pc += 1;
+                break;
+            case CompactSequences.NULL:
+                value = JSONObject.NULL;
+                pc += 1;
+                break;
+            case CompactSequences.CALL: {
+                JSONArray call = new JSONArray();
+                work.add(new Frame(sequences.getCode(pc + 1), call, object, frame, frame.depth + 1));
+                value = call;
+                pc += 2;
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown sequence op " + op + " at " + pc);
+        }
+        if (array != null) {
+            array.put(value);
+        } else {
+            object.put(key, value);
+        }
+        return pc;
+    }
+
+    private static class Frame {
+        private int sequence;
+        private JSONArray target;
+        private JSONObject node;
+        private Frame parent;
+        private int depth;
+
+        Frame(int sequence, JSONArray target, JSONObject node, Frame parent, int depth) {
+            this.sequence = sequence;
+            this.target = target;
+            this.node = node;
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        // the requested method itself has no node to mark
+        void mark(String key, Object value) {
+            if (node != null) {
+                node.put(key, value);
+            }
+        }
+
+        // the path back to the requested method is at most maxDepth frames long
+        boolean isBackEdge(CompactSequences sequences) {
+            int method = sequences.getMethod(sequence);
+            for (Frame f = parent; f != null; f = f.parent) {
+                if (sequences.getMethod(f.sequence) == method) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.program.analysis.app.representation;
+
+/*
+    Request level limits for sequence diagram generation.
+    maxDepth: deepest level of nested method calls that is expanded, the requested method is level 0
+    maxNodes: number of method calls that are expanded before the rest of the diagram is cut off
+ */
+public final class SequenceOptions {
+    public static final int DEFAULT_MAX_DEPTH = 32;
+    public static final int DEFAULT_MAX_NODES = 5000;
+    private static final SequenceOptions DEFAULTS = new SequenceOptions(DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+
+    private final int maxDepth;
+    private final int maxNodes;
+
+    public SequenceOptions(int maxDepth, int maxNodes) {
+        this.maxDepth = Math.max(0, maxDepth);
+        this.maxNodes = Math.max(1, maxNodes);
+    }
+
+    public static SequenceOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SequenceOptions)) {
+            return false;
+        }
+        SequenceOptions other = (SequenceOptions) o;
+        return maxDepth == other.maxDepth && maxNodes == other.maxNodes;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * maxDepth + maxNodes;
+    }
+}
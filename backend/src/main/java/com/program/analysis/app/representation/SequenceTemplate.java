@@ -0,0 +1,57 @@
+package com.program.analysis.app.representation;
+
+import org.json.JSONArray;
+
+import java.util.Map;
+import java.util.Set;
+
+/*
+    Shallow sequence diagram of a single method. Every call into another method of the project is an empty
+    "call" array in calls, pendingCalls tells which method has to be expanded into that array.
+    Templates only live while SequenceCompiler encodes them into CompactSequences.
+ */
+class SequenceTemplate {
+    private JSONArray calls;
+    private Map<JSONArray, PendingCall> pendingCalls;
+    private Set<String> lookedUpClasses;
+
+    SequenceTemplate(JSONArray calls, Map<JSONArray, PendingCall> pendingCalls, Set<String> lookedUpClasses) {
+        this.calls = calls;
+        this.pendingCalls = pendingCalls;
+        this.lookedUpClasses = lookedUpClasses;
+    }
+
+    JSONArray getCalls() {
+        return calls;
+    }
+
+    PendingCall getPendingCall(JSONArray call) {
+        return pendingCalls.get(call);
+    }
+
+    /*
+        Names of the classes the template was built from (found or not), the template only changes when one
+        of these does
+     */
+    Set<String> getLookedUpClasses() {
+        return lookedUpClasses;
+    }
+
+    static class PendingCall {
+        private Method method;
+        private GraphElement owner;
+
+        PendingCall(Method method, GraphElement owner) {
+            this.method = method;
+            this.owner = owner;
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        GraphElement getOwner() {
+            return owner;
+        }
+    }
+}
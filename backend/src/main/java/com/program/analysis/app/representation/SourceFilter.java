@@ -0,0 +1,102 @@
+package com.program.analysis.app.representation;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+    Decides which java files of an upload are worth a full parse, before anything is parsed:
+    - package-info.java and module-info.java are always skipped, they can not declare a type
+    - files larger than maxFileSize bytes are skipped (0 for no limit)
+    - a lexical scan of the start of the content finds the package and the first top level type declaration,
+      with skipTypeless the files without any (empty or commented out files) are skipped. Otherwise they stay
+      in the class diagram as a class without a name.
+    - with include globs only matching files are parsed, files matching an exclude glob never are
+    A glob is matched against the path of the file as well as against its package path, so "com/example/gen/*.java"
+    matches the files of that package whatever folder the sources are in.
+ */
+public class SourceFilter {
+    private static final SourceFilter DEFAULTS = new SourceFilter(Collections.<String>emptyList(), Collections.<String>emptyList(), 0, false);
+    // bytes of a file scanned first, the package and a type are declared near the top
+    private static final int HEAD_SIZE = 16 * 1024;
+
+    private List<PathMatcher> includes;
+    private List<PathMatcher> excludes;
+    private long maxFileSize;
+    private boolean skipTypeless;
+
+    public SourceFilter(Collection<String> includes, Collection<String> excludes, long maxFileSize, boolean skipTypeless) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.maxFileSize = Math.max(0, maxFileSize);
+        this.skipTypeless = skipTypeless;
+    }
+
+    // only skips package-info.java and module-info.java
+    public static SourceFilter defaults() {
+        return DEFAULTS;
+    }
+
+    private static List<PathMatcher> compile(Collection<String> globs) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        List<PathMatcher> matchers = new ArrayList<PathMatcher>();
+        for (String glob: globs) {
+            if (glob != null && !glob.trim().isEmpty()) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + glob.trim()));
+            }
+        }
+        return matchers;
+    }
+
+    /*
+        Whether the source should be parsed. The size of a file on disk is checked before it is read.
+     */
+    boolean accept(JavaSource source) {
+        String path = source.getPath().replace('\\', '/');
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (fileName.equals("package-info.java") || fileName.equals("module-info.java")) {
+            return false;
+        }
+        if (maxFileSize > 0 && source.getSize() > maxFileSize) {
+            return false;
+        }
+        if (!skipTypeless && includes.isEmpty() && excludes.isEmpty()) {
+            return true;
+        }
+        SourceScan scan = scanHead(source);
+        if (skipTypeless && scan.getTypeNames().isEmpty()) {
+            return false;
+        }
+        String packagePath = scan.getPackageName().isEmpty() ? fileName
+                : scan.getPackageName().replace('.', '/') + "/" + fileName;
+        if (!includes.isEmpty() && !matches(includes, path) && !matches(includes, packagePath)) {
+            return false;
+        }
+        return !matches(excludes, path) && !matches(excludes, packagePath);
+    }
+
+    // the whole content is only scanned when no type is declared in its head
+    private static SourceScan scanHead(JavaSource source) {
+        byte[] head = source.getHead(HEAD_SIZE);
+        SourceScan scan = SourceScan.scanHead(head);
+        if (scan.getTypeNames().isEmpty() && head.length < source.getSize()) {
+            scan = SourceScan.scanHead(source.getContent());
+        }
+        return scan;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, String path) {
+        Path file = FileSystems.getDefault().getPath(path);
+        for (PathMatcher matcher: matchers) {
+            if (matcher.matches(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+package com.program.analysis.app.representation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Lexical pre-scan of a java file: the package and the names of the top level types, without parsing it.
+    It walks the bytes once, skipping comments, string, text block and char literals and everything inside
+    braces. Keywords and names are ASCII in practice and every byte of a multi-byte UTF-8 character is
+    above 0x7f, so the bytes do not have to be decoded. scanHead stops at the first type name.
+ */
+class SourceScan {
+    private String packageName = "";
+    private List<String> typeNames = new ArrayList<String>();
+
+    private byte[] content;
+    private int pos;
+    private boolean firstTypeOnly;
+
+    private SourceScan(byte[] content, boolean firstTypeOnly) {
+        this.content = content;
+        this.firstTypeOnly = firstTypeOnly;
+    }
+
+    static SourceScan scan(byte[] content) {
+        SourceScan scan = new SourceScan(content, false);
+        scan.run();
+        return scan;
+    }
+
+    // the package and the first type name only, the content may be cut off after it
+    static SourceScan scanHead(byte[] content) {
+        SourceScan scan = new SourceScan(content, true);
+        scan.run();
+        return scan;
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    List<String> getTypeNames() {
+        return typeNames;
+    }
+
+    private void run() {
+        int depth = 0;
+        // the last token at depth 0, to tell "Foo.class" and "@interface" from declarations
+        int previous = 0;
+        boolean expectTypeName = false;
+        while (pos < content.length) {
+            int c = content[pos] & 0xff;
+            if (c == '/' && peek(1) == '/') {
+                skipLineComment();
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else if (c == '"') {
+                skipString();
+                previous = c;
+            } else if (c == '\'') {
+                skipChar();
+                previous = c;
+            } else if (c == '{') {
+                depth++;
+                pos++;
+                expectTypeName = false;
+            } else if (c == '}') {
+                depth = Math.max(0, depth - 1);
+                pos++;
+                previous = c;
+            } else if (isIdentifierStart(c)) {
+                String word = readIdentifier();
+                if (depth == 0) {
+                    if (expectTypeName) {
+                        typeNames.add(word);
+                        expectTypeName = false;
+                        if (firstTypeOnly) {
+                            return;
+                        }
+                    } else if (word.equals("package") && typeNames.isEmpty()) {
+                        packageName = readQualifiedName();
+                    } else if (previous != '.' && (word.equals("class") || word.equals("interface") || word.equals("enum"))) {
+                        expectTypeName = true;
+                    }
+                }
+                previous = 'a';
+            } else {
+                if (c > ' ') {
+                    previous = c;
+                }
+                pos++;
+            }
+        }
+    }
+
+    private int peek(int offset) {
+        return pos + offset < content.length ? content[pos + offset] & 0xff : -1;
+    }
+
+    private void skipLineComment() {
+        while (pos < content.length && content[pos] != '\n') {
+            pos++;
+        }
+    }
+
+    private void skipBlockComment() {
+        pos += 2;
+        while (pos < content.length && !(content[pos] == '*' && peek(1) == '/')) {
+            pos++;
+        }
+        pos += 2;
+    }
+
+    private void skipString() {
+        if (peek(1) == '"' && peek(2) == '"') {
+            // text block, up to the next unescaped """
+            pos += 3;
+            while (pos < content.length && !(content[pos] == '"' && peek(1) == '"' && peek(2) == '"')) {
+                pos += content[pos] == '\\' ? 2 : 1;
+            }
+            pos += 3;
+            return;
+        }
+        pos++;
+        while (pos < content.length && content[pos] != '"' && content[pos] != '\n') {
+            pos += content[pos] == '\\' ? 2 : 1;
+        }
+        pos++;
+    }
+
+    private void skipChar() {
+        pos++;
+        while (pos < content.length && content[pos] != '\'' && content[pos] != '\n') {
+            pos += content[pos] == '\\' ? 2 : 1;
+        }
+        pos++;
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return Character.isLetter(c) || c == '_' || c == '$' || c > 0x7f;
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || Character.isDigit(c);
+    }
+
+    private String readIdentifier() {
+        int start = pos;
+        while (pos < content.length && isIdentifierPart(content[pos] & 0xff)) {
+            pos++;
+        }
+        return new String(content, start, pos - start, StandardCharsets.UTF_8);
+    }
+
+    // the dotted name after "package", comments and whitespace in between are allowed
+    private String readQualifiedName() {
+        ByteArrayOutputStream name = new ByteArrayOutputStream();
+        while (pos < content.length) {
+            int c = content[pos] & 0xff;
+            if (c == ';' || c == '{') {
+                break;
+            } else if (c == '/' && peek(1) == '/') {
+                skipLineComment();
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else if (isIdentifierPart(c) || c == '.') {
+                name.write(c);
+                pos++;
+            } else {
+                pos++;
+            }
+        }
+        return new String(name.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
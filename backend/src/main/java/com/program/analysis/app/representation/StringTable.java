@@ -0,0 +1,67 @@
+package com.program.analysis.app.representation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Interned strings of a project, every distinct string is stored once and referred to by its int ID.
+    null is ID -1. Strings can be interned from several threads (the classes of a project are collected in
+    parallel), reading one by its ID takes no lock.
+    Fields and methods only keep the IDs, their getters are given the table of their class
+    (GraphElement.getStrings()).
+ */
+public class StringTable {
+    private Map<String, Integer> ids;
+    private volatile String[] strings;
+    private volatile int size;
+
+    StringTable() {
+        this.ids = new ConcurrentHashMap<String, Integer>();
+        this.strings = new String[16];
+    }
+
+    int intern(String s) {
+        if (s == null) {
+            return -1;
+        }
+        Integer id = ids.get(s);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(s);
+            if (id == null) {
+                if (size == strings.length) {
+                    strings = Arrays.copyOf(strings, size * 2);
+                }
+                id = size;
+                strings[id] = s;
+                size = id + 1;
+                ids.put(s, id);
+            }
+        }
+        return id;
+    }
+
+    // ID of the string, -1 when it was never interned
+    int find(String s) {
+        Integer id = s == null ? null : ids.get(s);
+        return id == null ? -1 : id;
+    }
+
+    public String get(int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    /*
+        The instance of the string kept in the table, for sets of names that stay strings
+     */
+    String canonical(String s) {
+        return get(intern(s));
+    }
+
+    int size() {
+        return size;
+    }
+}
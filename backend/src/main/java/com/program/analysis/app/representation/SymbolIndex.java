@@ -0,0 +1,63 @@
+package com.program.analysis.app.representation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Project wide lookup tables, built once after parsing:
+    class name -> GraphElement, (class, method name) -> methods, (class, field name) -> field type.
+    When several entries share a name the first one in iteration order wins, the same result a linear scan
+    over the project would give.
+ */
+class SymbolIndex {
+    private Map<String, GraphElement> classes;
+    private Map<GraphElement, Map<String, List<Method>>> methods;
+    private Map<GraphElement, Map<String, String>> fieldTypes;
+
+    SymbolIndex(Collection<GraphElement> elements) {
+        classes = new HashMap<String, GraphElement>();
+        methods = new IdentityHashMap<GraphElement, Map<String, List<Method>>>();
+        fieldTypes = new IdentityHashMap<GraphElement, Map<String, String>>();
+        for (GraphElement ge: elements) {
+            classes.putIfAbsent(ge.getClassName(), ge);
+            Map<String, List<Method>> byName = new HashMap<String, List<Method>>();
+            for (Method m: ge.getListOfMethods()) {
+                byName.computeIfAbsent(m.getName(ge.getStrings()), k -> new ArrayList<Method>()).add(m);
+            }
+            methods.put(ge, byName);
+            Map<String, String> types = new HashMap<String, String>();
+            for (Field f: ge.getFields()) {
+                types.putIfAbsent(f.getName(ge.getStrings()), f.getType(ge.getStrings()));
+            }
+            fieldTypes.put(ge, types);
+        }
+    }
+
+    GraphElement getClass(String name) {
+        return name == null ? null : classes.get(name);
+    }
+
+    List<Method> getMethods(GraphElement ge, String name) {
+        Map<String, List<Method>> byName = methods.get(ge);
+        if (byName == null || name == null) {
+            return Collections.emptyList();
+        }
+        List<Method> result = byName.get(name);
+        return result == null ? Collections.<Method>emptyList() : result;
+    }
+
+    Method getMethod(GraphElement ge, String name) {
+        List<Method> candidates = getMethods(ge, name);
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    String getFieldType(GraphElement ge, String name) {
+        Map<String, String> types = fieldTypes.get(ge);
+        return types == null ? null : types.get(name);
+    }
+}
@@ -0,0 +1,201 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ForEachStmt;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+    Collects the GraphElements of a compilation unit in one pass: one for every class, interface and enum, top
+    level, nested or local, in the order they are declared. Each gets the fields, supertypes and methods it
+    declares itself, the members of a nested type are not the enclosing type's.
+    Within a method body the calls and control statements the sequence diagrams are built from are collected,
+    not what is inside them (SequenceDiagramBuilder walks that); the pass still goes on inside them for the
+    local classes they may declare. Anonymous classes and enum constant bodies have no name to be shown
+    under, their members are left out.
+ */
+class TypeCollector extends VoidVisitorAdapter<Object> {
+    private List<GraphElement> elements = new ArrayList<GraphElement>();
+    // the innermost type and method being visited, null outside of them
+    private GraphElement type;
+    private Method method;
+    // inside a collected call or control statement of the method
+    private boolean inStatement;
+    // false leaves the call and control statements of the bodies out, for the signatures only
+    private boolean collectStatements;
+    private StringTable strings;
+
+    TypeCollector(boolean collectStatements, StringTable strings) {
+        this.collectStatements = collectStatements;
+        this.strings = strings;
+    }
+
+    /*
+        The types in declaration order; a file that declares none still gets one element without a name
+     */
+    List<GraphElement> getElements() {
+        if (elements.isEmpty()) {
+            elements.add(newElement("", "", new HashSet<Field>(), new HashSet<String>(), new HashSet<String>(), new HashSet<String>()));
+        }
+        return elements;
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration n, Object arg) {
+        String classType = n.isInterface() ? "interface" : getType(n.getModifiers());
+        Set<String> typeParameters = new HashSet<String>();
+        for (TypeParameter tp: n.getTypeParameters()) {
+            typeParameters.add(strings.canonical(tp.getNameAsString()));
+        }
+        Set<String> inheritance = new HashSet<String>();
+        for (ClassOrInterfaceType ci: n.getExtendedTypes()) {
+            inheritance.add(strings.canonical(ci.getNameAsString()));
+        }
+        Set<String> implementation = new HashSet<String>();
+        for (ClassOrInterfaceType ci: n.getImplementedTypes()) {
+            implementation.add(strings.canonical(ci.getNameAsString()));
+        }
+        Set<Field> fields = new HashSet<Field>();
+        for (FieldDeclaration fd: n.getFields()) {
+            fields.add(new Field(fd, strings));
+        }
+        visitType(newElement(n.getNameAsString(), classType, fields, inheritance, implementation, typeParameters), () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(EnumDeclaration n, Object arg) {
+        //enum class is only for declaration of enum constants
+        Set<Field> fields = new HashSet<Field>();
+        for (FieldDeclaration fd: n.getFields()) {
+            fields.add(new Field(fd, strings));
+        }
+        for (EnumConstantDeclaration ed: n.getEntries()) {
+            fields.add(new Field(ed, strings));
+        }
+        visitType(newElement(n.getNameAsString(), "enum", fields, new HashSet<String>(), new HashSet<String>(), new HashSet<String>()), () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(MethodDeclaration n, Object arg) {
+        if (type == null) {
+            return;
+        }
+        Method outerMethod = method;
+        boolean outerStatement = inStatement;
+        method = new Method(n, strings);
+        inStatement = false;
+        for (Node node: n.getChildNodes()) {
+            if (node instanceof BlockStmt) {
+                method.setLineStmt(node);
+            }
+        }
+        if (collectStatements) {
+            method.setLocalVariables(LocalVariableTable.of(n));
+        }
+        super.visit(n, arg);
+        type.getListOfMethods().add(method);
+        method = outerMethod;
+        inStatement = outerStatement;
+    }
+
+    @Override
+    public void visit(ObjectCreationExpr n, Object arg) {
+        // everything but the anonymous class body
+        n.getScope().ifPresent(scope -> scope.accept(this, arg));
+        n.getArguments().forEach(argument -> argument.accept(this, arg));
+    }
+
+    @Override
+    public void visit(EnumConstantDeclaration n, Object arg) {
+        n.getArguments().forEach(argument -> argument.accept(this, arg));
+    }
+
+    @Override
+    public void visit(MethodCallExpr n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(IfStmt n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(ForStmt n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(WhileStmt n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(ForEachStmt n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    @Override
+    public void visit(SwitchStmt n, Object arg) {
+        visitStatement(n, () -> super.visit(n, arg));
+    }
+
+    private GraphElement newElement(String name, String classType, Set<Field> fields, Set<String> inheritance,
+            Set<String> implementation, Set<String> typeParameters) {
+        return new GraphElement(name, classType, fields, new HashSet<Method>(), inheritance, implementation,
+                typeParameters, new HashSet<String>(), null, strings);
+    }
+
+    // the members of a type are visited with it as the innermost type, outside of any method of the enclosing one
+    private void visitType(GraphElement element, Runnable members) {
+        elements.add(element);
+        GraphElement outerType = type;
+        Method outerMethod = method;
+        boolean outerStatement = inStatement;
+        type = element;
+        method = null;
+        inStatement = false;
+        members.run();
+        type = outerType;
+        method = outerMethod;
+        inStatement = outerStatement;
+    }
+
+    private void visitStatement(Node n, Runnable inside) {
+        if (method != null && collectStatements && !inStatement) {
+            method.addStmt(n);
+        }
+        boolean outerStatement = inStatement;
+        inStatement = true;
+        inside.run();
+        inStatement = outerStatement;
+    }
+
+    private String getType(List<Modifier> modifiers) {
+        for (Modifier mod: modifiers) {
+            if (mod.equals(Modifier.abstractModifier())) {
+                return mod.getKeyword().asString();
+            }
+        }
+        return "class";
+    }
+}
@@ -0,0 +1,147 @@
+package com.program.analysis.app.representation;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Resolves the types of expressions with the javaparser symbol solver, over the types of the project and
+    of the JRE. One resolver serves every compile of a project; the project's types it finds are cached by
+    ProjectTypeSolver until a compile finishes. The solver is not thread safe (it caches on the AST nodes),
+    so lookups are made one at a time.
+    A compile resolves through a Request, which stops asking the solver once its time is up; a single lookup
+    can not be interrupted, so the last one may run over.
+ */
+class TypeResolver {
+    // JavaParserFacade.instances, the facade of every type solver it was asked about
+    private static final Field FACADES = facades();
+
+    private ProjectTypeSolver projectTypes;
+    private TypeSolver typeSolver;
+    private JavaParserFacade facade;
+
+    TypeResolver(Collection<JavaSource> sources) {
+        this.projectTypes = new ProjectTypeSolver(sources);
+        this.typeSolver = new CombinedTypeSolver(projectTypes, new ReflectionTypeSolver());
+        this.facade = JavaParserFacade.get(typeSolver);
+    }
+
+    private static Field facades() {
+        try {
+            Field field = JavaParserFacade.class.getDeclaredField("instances");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /*
+        Resolution for one compile, timeoutMillis after now it gives up (0 for no limit)
+     */
+    Request startRequest(long timeoutMillis) {
+        return new Request(timeoutMillis);
+    }
+
+    /*
+        Simple name of the class or interface the expression evaluates to, null for other types and when the
+        solver fails (unknown symbols, code it does not support)
+     */
+    private synchronized String resolve(Expression expression) {
+        try {
+            ResolvedType type = facade.getType(expression);
+            if (!type.isReferenceType()) {
+                return null;
+            }
+            return type.asReferenceType().getTypeDeclaration().map(declaration -> declaration.getName()).orElse(null);
+        } catch (RuntimeException | StackOverflowError e) {
+            return null;
+        }
+    }
+
+    /*
+        JavaParserFacade keeps the facade of every type solver in a static map, and the facade holds on to its
+        solver, so the entry of this resolver's solver would keep the project alive. The symbol solver adds it
+        again on its own lookups, it is dropped after every compile; the entries of other projects are left
+        alone. The parsed files are let go as well, a later compile parses them again.
+     */
+    private synchronized void release() {
+        projectTypes.clear();
+        if (FACADES == null) {
+            return;
+        }
+        // get() is synchronized on the class
+        synchronized (JavaParserFacade.class) {
+            try {
+                ((Map<?, ?>) FACADES.get(null)).remove(typeSolver);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // the entry stays until the map is cleared
+            }
+        }
+    }
+
+    class Request {
+        private long start;
+        private long timeoutNanos;
+        private AtomicInteger resolved = new AtomicInteger();
+        private AtomicInteger unresolved = new AtomicInteger();
+        private AtomicInteger timedOut = new AtomicInteger();
+
+        private Request(long timeoutMillis) {
+            this.start = System.nanoTime();
+            this.timeoutNanos = timeoutMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+        }
+
+        /*
+            Like TypeResolver.resolve, null without asking once the time of the request is up. Waiting for
+            another thread's lookup counts as well.
+         */
+        String resolveType(Expression expression) {
+            if (isTimedOut()) {
+                timedOut.incrementAndGet();
+                return null;
+            }
+            String type;
+            synchronized (TypeResolver.this) {
+                if (isTimedOut()) {
+                    timedOut.incrementAndGet();
+                    return null;
+                }
+                type = resolve(expression);
+            }
+            (type == null ? unresolved : resolved).incrementAndGet();
+            return type;
+        }
+
+        private boolean isTimedOut() {
+            return timeoutNanos > 0 && System.nanoTime() - start > timeoutNanos;
+        }
+
+        int getResolved() {
+            return resolved.get();
+        }
+
+        int getUnresolved() {
+            return unresolved.get();
+        }
+
+        // lookups given up on because the time was up
+        int getTimedOut() {
+            return timedOut.get();
+        }
+
+        // the compile is done, see TypeResolver.release
+        void finish() {
+            release();
+        }
+    }
+}
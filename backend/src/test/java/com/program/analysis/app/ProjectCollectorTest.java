@@ -1,18 +1,46 @@
 package com.program.analysis.app;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
+import com.program.analysis.app.representation.CallGraph;
+import com.program.analysis.app.representation.GraphElement;
+import com.program.analysis.app.representation.Method;
 import com.program.analysis.app.representation.ProjectCollector;
 import com.program.analysis.app.representation.ProjectParseException;
+import com.program.analysis.app.representation.ProjectSnapshot;
+import com.program.analysis.app.representation.SequenceOptions;
+import com.program.analysis.app.representation.SourceFilter;
+import com.program.analysis.app.representation.StringTable;
 
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 public class ProjectCollectorTest {
-    private ProjectCollector collector = ProjectCollector.getInstance();
+    private ProjectCollector collector = new ProjectCollector();
     private static ZipFileStorageManager manager = new ZipFileStorageManager();
 
     @BeforeAll
@@ -141,18 +169,40 @@ public class ProjectCollectorTest {
 
     @Test
     public void testClassWithPrivate() throws IOException, ProjectParseException {
-        // Not Supported
         File[] files = manager.unzipFile("/ClassWithPrivate.zip", true);
         collector.parseFiles(files);
-        Assertions.assertEquals(1, collector.getClasses().size());
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("ClassWithPrivate", "MyEnum", "Test")), classNames(collector));
     }
 
     @Test
     public void testClassWithPrivateInterface() throws IOException, ProjectParseException {
-        // Not Supported
         File[] files = manager.unzipFile("/ClassWithPrivateInterface.zip", true);
         collector.parseFiles(files);
-        Assertions.assertEquals(1, collector.getClasses().size());
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("DataStructure", "DataStructureIterator", "EvenIterator")), classNames(collector));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("main", "printEven")), methodNames("DataStructure"));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("hasNext", "next")), methodNames("EvenIterator"));
+    }
+
+    @Test
+    public void testEveryTypeOfAFileIsAClass() throws IOException, ProjectParseException {
+        // a nested class and enum, a local class and a second top level class
+        File[] files = manager.unzipFile("/SeveralTypes.zip", true);
+        collector.parseFiles(files);
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Item", "Order", "Parcel", "Receipt", "Status")), classNames(collector));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("add", "ship")), methodNames("Order"));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("getName")), methodNames("Item"));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("seal")), methodNames("Parcel"));
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("clear", "line", "print", "stamp")), methodNames("Receipt"));
+        for (GraphElement ge: collector.getClasses()) {
+            if (ge.getClassName().equals("Order")) {
+                Assertions.assertEquals(2, ge.getFields().size());
+            }
+        }
+        // the call in the local class is seal's, not one of ship's
+        JSONArray ship = collector.getSeqDiagramInfo("Order", "ship");
+        Assertions.assertEquals(1, ship.length());
+        Assertions.assertEquals("Parcel", ship.getJSONObject(0).getString("calleeClass"));
+        Assertions.assertEquals("seal", ship.getJSONObject(0).getString("callerName"));
     }
 
     @Test
@@ -169,6 +219,21 @@ public class ProjectCollectorTest {
         Assertions.assertEquals(4, collector.getClasses().size());
     }
 
+    @Test
+    public void testGenericArrayAndQualifiedDependencies() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/GenericDependency.zip", true);
+        collector.parseFiles(files);
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Car", "Engine", "Wheel")), getDependencies("Garage"));
+        collector.setMemberDependencies(true);
+        try {
+            collector.parseFiles(files);
+        } finally {
+            collector.setMemberDependencies(false);
+        }
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Car", "Driver", "Engine", "Owner", "Ticket", "Wheel")),
+                getDependencies("Garage"));
+    }
+
     @Test
     public void testSampleProject() throws IOException, ProjectParseException {
         File[] files = manager.unzipFile("/SampleProject.zip", true);
@@ -190,6 +255,527 @@ public class ProjectCollectorTest {
         Assertions.assertEquals(1, collector.getClasses().size());
     }
 
+    @Test
+    public void testParallelParseMatchesSequential() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/SampleProject.zip", true);
+        collector.parseFiles(files);
+        Set<String> sequential = classSummary();
+        collector.setParseParallelism(4);
+        try {
+            collector.parseFiles(files);
+        } finally {
+            collector.setParseParallelism(1);
+        }
+        Assertions.assertEquals(sequential, classSummary());
+    }
+
+    @Test
+    public void testZipStreamMatchesExtractedFiles() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/SampleProject.zip", true);
+        collector.parseFiles(files);
+        Set<String> extracted = classSummary();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/SampleProject.zip")) {
+            collector.parseZipStream(inputStream);
+        }
+        Assertions.assertEquals(extracted, classSummary());
+    }
+
+    @Test
+    public void testParallelUnzipMatchesSequential() throws IOException, ProjectParseException {
+        collector.parseFiles(manager.unzipFile("/SampleProject2.zip", true));
+        Set<String> sequential = classSummary();
+        manager.setExtractParallelism(4);
+        try {
+            collector.parseFiles(manager.unzipFile("/SampleProject2.zip", true));
+        } finally {
+            manager.setExtractParallelism(1);
+        }
+        Assertions.assertEquals(sequential, classSummary());
+    }
+
+    @Test
+    public void testUnzipRejectsEntriesOutsideFolder() {
+        Assertions.assertThrows(IOException.class, () -> manager.unzipFile("/ZipSlip.zip", true));
+        Assertions.assertFalse(new File("src/test/resources/unzip/../../Outside.java").exists());
+    }
+
+    @Test
+    public void testSequenceDiagramWithoutMethodBodies() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/SampleProject.zip", true);
+        collector.parseFiles(files);
+        for (GraphElement ge: collector.getClasses()) {
+            for (Method m: ge.getListOfMethods()) {
+                Assertions.assertNull(m.getMethodCall());
+                Assertions.assertNull(m.getAllStatements());
+            }
+        }
+        JSONArray calls = collector.getSeqDiagramInfo("Radio", "radioFunction");
+        Assertions.assertEquals(1, calls.length());
+        Assertions.assertEquals("Sound", calls.getJSONObject(0).getString("calleeClass"));
+    }
+
+    @Test
+    public void testClassDiagramPayloadMatchesJSON() throws Exception {
+        ProjectRegistry registry = new ProjectRegistry(1);
+        DiagramProviderService service = new DiagramProviderService(registry);
+        for (String zip: new String[] {"/SampleProject.zip", "/tinyVarsEvaluator.zip", "/GenericDependency.zip"}) {
+            ProjectCollector project = new ProjectCollector();
+            project.parseFiles(manager.unzipFile(zip, true));
+            registry.register(zip, project);
+            ClassDiagramPayload payload = service.getClassDiagramPayload(zip);
+            JSONArray expected = service.getClassDiagramInfo(zip);
+            Assertions.assertTrue(expected.similar(new JSONArray(new String(payload.getJson(), "UTF-8"))), zip);
+            Assertions.assertTrue(payload.matches("W/\"x\", " + payload.getETag(), false));
+            Assertions.assertFalse(payload.matches("\"x\"", false));
+            Assertions.assertFalse(payload.sendsGzip("gzip"));
+
+            // the gzipped copy is another representation with a tag of its own
+            ClassDiagramPayload gzipped = ClassDiagramPayload.create(project.getClasses(), true);
+            Assertions.assertEquals(payload.getETag(), gzipped.getETag(false));
+            Assertions.assertNotEquals(gzipped.getETag(false), gzipped.getETag(true));
+            Assertions.assertFalse(gzipped.matches(gzipped.getETag(false), true));
+            Assertions.assertTrue(gzipped.matches(gzipped.getETag(true), true));
+            Assertions.assertTrue(gzipped.sendsGzip("deflate, gzip;q=0.5"));
+            Assertions.assertTrue(gzipped.sendsGzip("*"));
+            Assertions.assertFalse(gzipped.sendsGzip("gzip;q=0, *"));
+            Assertions.assertFalse(gzipped.sendsGzip("gzip; q=0.0"));
+            Assertions.assertFalse(gzipped.sendsGzip("identity"));
+        }
+    }
+
+    @Test
+    public void testAnalysisMetersRecordTheUpload() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AnalysisMeters meters = new AnalysisMeters(registry);
+        ProjectCollector project = new ProjectCollector();
+        project.setMetrics(meters);
+        File[] files = manager.unzipFile("/SampleProject.zip", true);
+        project.parseFiles(files);
+        project.getSeqDiagramInfo("Car", "carFunction3", SequenceOptions.defaults(), meters);
+
+        for (String phase: new String[] {"reading", "parsing", "dependencies", "sequences"}) {
+            Assertions.assertEquals(1, registry.get("analysis.phase").tag("phase", phase).timer().count(), phase);
+        }
+        int javaFiles = 0;
+        for (File file: files) {
+            javaFiles += countJavaFiles(file);
+        }
+        Assertions.assertTrue(javaFiles > 0);
+        Assertions.assertEquals(javaFiles, (int) registry.get("analysis.parse.files").counter().count());
+        Assertions.assertEquals(1, registry.get("analysis.sequence.nodes").summary().count());
+    }
+
+    @Test
+    public void testProjectRegistryDropsTheOldestUpload() throws Exception {
+        ProjectRegistry registry = new ProjectRegistry(2);
+        ProjectCollector project = new ProjectCollector();
+        project.parseFiles(manager.unzipFile("/Course.zip", true));
+        registry.register("a", project);
+        registry.register("b", project);
+        // registered again, a is now newer than b
+        registry.register("a", project);
+        registry.register("c", project);
+        Assertions.assertSame(project, registry.get("a"));
+        Assertions.assertSame(project, registry.get("c"));
+        Assertions.assertThrows(ProjectNotFoundException.class, () -> registry.get("b"));
+        Assertions.assertThrows(ProjectNotFoundException.class, () -> registry.getClassDiagram("b"));
+    }
+
+    @Test
+    public void testSequenceDiagramCache() throws Exception {
+        ProjectRegistry registry = new ProjectRegistry(1);
+        DiagramProviderService service = new DiagramProviderService(registry);
+        ProjectCollector project = new ProjectCollector();
+        project.parseFiles(manager.unzipFile("/SampleProject.zip", true));
+        registry.register("sample", project);
+        String first = service.getSeqDiagramJson("sample", "Car", "carFunction3", SequenceOptions.defaults());
+        String second = service.getSeqDiagramJson("sample", "Car", "carFunction3", SequenceOptions.defaults());
+        Assertions.assertSame(first, second);
+        Assertions.assertTrue(new JSONArray(first).similar(project.getSeqDiagramInfo("Car", "carFunction3")));
+        service.getSeqDiagramJson("sample", "Car", "carFunction3", new SequenceOptions(1, 10));
+        JSONObject stats = service.getSequenceCacheStats();
+        Assertions.assertEquals(1, stats.getLong("hits"));
+        Assertions.assertEquals(2, stats.getLong("misses"));
+    }
+
+    @Test
+    public void testMutualRecursionIsMarkedAsSelf() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/MutualRecursion.zip", true);
+        collector.parseFiles(files);
+        JSONArray calls = collector.getSeqDiagramInfo("Ping", "ping");
+        Assertions.assertEquals(1, calls.length());
+        JSONObject pong = calls.getJSONObject(0);
+        Assertions.assertEquals("Pong", pong.getString("calleeClass"));
+        JSONObject ping = pong.getJSONArray("call").getJSONObject(0);
+        Assertions.assertEquals("Ping", ping.getString("calleeClass"));
+        Assertions.assertEquals("self", ping.getString("type"));
+        Assertions.assertEquals(0, ping.getJSONArray("call").length());
+    }
+
+    @Test
+    public void testInheritanceCycleEndsTheMethodLookup() throws IOException, ProjectParseException {
+        // A extends B and B extends A, missing() is in neither
+        File[] files = manager.unzipFile("/InheritanceCycle.zip", true);
+        collector.parseFiles(files);
+        JSONArray calls = collector.getSeqDiagramInfo("A", "run");
+        Assertions.assertEquals("self", calls.getJSONObject(0).getString("callerName"));
+    }
+
+    @Test
+    public void testSequenceDepthLimit() throws IOException, ProjectParseException {
+        File[] files = manager.unzipFile("/MutualRecursion.zip", true);
+        collector.parseFiles(files);
+        JSONArray calls = collector.getSeqDiagramInfo("Ping", "ping", new SequenceOptions(0, 100));
+        JSONObject pong = calls.getJSONObject(0);
+        Assertions.assertTrue(pong.getBoolean("truncated"));
+        Assertions.assertEquals(0, pong.getJSONArray("call").length());
+    }
+
+    @Test
+    public void testSequenceNodeLimit() throws IOException, ProjectParseException {
+        // carFunction3 -> Brake.stop -> Tire.engage -> Tire.grip, Tire.heat
+        File[] files = manager.unzipFile("/LimitTest.zip", true);
+        collector.parseFiles(files);
+        JSONObject stop = collector.getSeqDiagramInfo("Car", "carFunction3").getJSONObject(0);
+        Assertions.assertEquals(2, stop.getJSONArray("call").getJSONObject(0).getJSONArray("call").length());
+
+        JSONArray capped = collector.getSeqDiagramInfo("Car", "carFunction3", new SequenceOptions(32, 2));
+        Assertions.assertEquals(1, capped.length());
+        stop = capped.getJSONObject(0);
+        Assertions.assertFalse(stop.has("truncated"));
+        JSONObject engage = stop.getJSONArray("call").getJSONObject(0);
+        Assertions.assertEquals("engage", engage.getString("callerName"));
+        Assertions.assertTrue(engage.getBoolean("truncated"));
+        Assertions.assertEquals(0, engage.getJSONArray("call").length());
+    }
+
+    @Test
+    public void testReuploadReusesUnchangedFiles() throws IOException, ProjectParseException {
+        ProjectCollector first = new ProjectCollector();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/IncrementalV1.zip")) {
+            first.parseZipStream(inputStream);
+        }
+        ProjectCollector second = new ProjectCollector();
+        second.setBaseProject(first);
+        try (InputStream inputStream = new FileInputStream("src/test/resources/IncrementalV2.zip")) {
+            second.parseZipStream(inputStream);
+        }
+        ProjectCollector full = new ProjectCollector();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/IncrementalV2.zip")) {
+            full.parseZipStream(inputStream);
+        }
+
+        // Spark changed and Coil is new, Radio now depends on Coil
+        Assertions.assertEquals(4, second.getReusedFiles());
+        Assertions.assertTrue(second.getReusedSequences() > 0);
+        Assertions.assertEquals(classSummary(full), classSummary(second));
+        Assertions.assertTrue(classSummary(second).contains("Radio:1:2:[Coil, Speaker]"));
+        for (String[] method: new String[][] {{"Car", "drive"}, {"Engine", "start"}, {"Spark", "fire"}, {"Radio", "play"}}) {
+            JSONArray expected = full.getSeqDiagramInfo(method[0], method[1]);
+            Assertions.assertTrue(expected.similar(second.getSeqDiagramInfo(method[0], method[1])), method[0]);
+        }
+        JSONArray drive = second.getSeqDiagramInfo("Car", "drive");
+        JSONObject fire = drive.getJSONObject(0).getJSONArray("call").getJSONObject(0);
+        Assertions.assertEquals("Coil", fire.getJSONArray("call").getJSONObject(0).getString("calleeClass"));
+    }
+
+    @Test
+    public void testParametersKeepTheirOrderAndNames() throws IOException, ProjectParseException {
+        // line(Order.Item item, int unit_count), the name has the old "type_name" separator in it
+        ProjectCollector project = new ProjectCollector();
+        project.parseFiles(manager.unzipFile("/SeveralTypes.zip", true));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ProjectSnapshot.write(project, snapshot);
+        ProjectCollector restored = ProjectSnapshot.read(ByteBuffer.wrap(snapshot.toByteArray()));
+        for (ProjectCollector p: new ProjectCollector[] {project, restored}) {
+            Method line = null;
+            StringTable strings = null;
+            for (GraphElement ge: p.getClasses()) {
+                for (Method m: ge.getListOfMethods()) {
+                    if (m.getName(ge.getStrings()).equals("line")) {
+                        line = m;
+                        strings = ge.getStrings();
+                    }
+                }
+            }
+            Assertions.assertEquals(2, line.getParamCount());
+            Assertions.assertEquals("Order.Item", line.getParamType(0, strings));
+            Assertions.assertEquals("item", line.getParamName(0, strings));
+            Assertions.assertEquals("int", line.getParamType(1, strings));
+            Assertions.assertEquals("unit_count", line.getParamName(1, strings));
+        }
+    }
+
+    @Test
+    public void testLazyMethodBodiesMatchEagerAnalysis() throws IOException, ProjectParseException {
+        ProjectCollector eager = new ProjectCollector();
+        eager.parseFiles(manager.unzipFile("/SampleProject.zip", true));
+        ProjectCollector lazy = new ProjectCollector();
+        lazy.setLazyMethodBodies(true);
+        try (InputStream inputStream = new FileInputStream("src/test/resources/SampleProject.zip")) {
+            lazy.parseZipStream(inputStream);
+        }
+        // the sources are kept in the snapshot, its methods are analysed on request as well
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        ProjectSnapshot.write(lazy, snapshot);
+        ProjectCollector restored = ProjectSnapshot.read(ByteBuffer.wrap(snapshot.toByteArray()));
+
+        Assertions.assertEquals(classSummary(eager), classSummary(lazy));
+        Assertions.assertTrue(restored.getLazyMethodBodies());
+        for (GraphElement ge: eager.getClasses()) {
+            for (Method m: ge.getListOfMethods()) {
+                JSONArray expected = eager.getSeqDiagramInfo(ge.getClassName(), m.getName(ge.getStrings()));
+                Assertions.assertTrue(expected.similar(lazy.getSeqDiagramInfo(ge.getClassName(), m.getName(ge.getStrings()))), m.getName(ge.getStrings()));
+                Assertions.assertTrue(expected.similar(restored.getSeqDiagramInfo(ge.getClassName(), m.getName(ge.getStrings()))), m.getName(ge.getStrings()));
+            }
+        }
+    }
+
+    @Test
+    public void testSourceFilterSkipsFilesBeforeParsing() throws IOException, ProjectParseException {
+        // package-info.java is always skipped, the commented out Notes.java by default stays an unnamed class
+        ProjectCollector project = new ProjectCollector();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/SourceFilter.zip")) {
+            project.parseZipStream(inputStream);
+        }
+        Assertions.assertEquals(1, project.getSkippedFiles());
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("", "Car", "CarBuilder", "Engine", "Table")), classNames(project));
+
+        // the exclude glob matches the package path, Table.java is too large and Notes.java declares no type
+        ProjectCollector filtered = new ProjectCollector();
+        filtered.setSourceFilter(new SourceFilter(Arrays.asList("**.java"), Arrays.asList("com/example/gen/*.java"), 1024, true));
+        filtered.parseFiles(manager.unzipFile("/SourceFilter.zip", true));
+        Assertions.assertEquals(4, filtered.getSkippedFiles());
+        Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Car", "Engine")), classNames(filtered));
+        Assertions.assertTrue(classSummary(filtered).contains("Car:1:2:[Engine]"));
+    }
+
+    @Test
+    public void testSourceFilterScansPastALongHeader() throws IOException, ProjectParseException {
+        File folder = Files.createTempDirectory("source-filter").toFile();
+        try {
+            StringBuilder comment = new StringBuilder("/*\n");
+            for (int i = 0; i < 1000; i++) {
+                comment.append(" * a long license header line of the file\n");
+            }
+            comment.append(" */\n");
+            // the type comes after the first 16 KB, the package of the generated class before it
+            Files.write(new File(folder, "Late.java").toPath(), (comment + "class Late {}\n").getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(folder, "Empty.java").toPath(), comment.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(folder, "Gen.java").toPath(), ("package com.example.gen;\nclass Gen {\n" + comment + "}\n").getBytes(StandardCharsets.UTF_8));
+            ProjectCollector project = new ProjectCollector();
+            project.setSourceFilter(new SourceFilter(Collections.<String>emptyList(), Arrays.asList("com/example/gen/*.java"), 0, true));
+            project.parseFiles(folder.listFiles());
+            Assertions.assertEquals(2, project.getSkippedFiles());
+            Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Late")), classNames(project));
+        } finally {
+            FileUtils.deleteDirectory(folder);
+        }
+    }
+
+    @Test
+    public void testCallGraphReachabilityAndFanIn() throws IOException, ProjectParseException {
+        ProjectCollector project = new ProjectCollector();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/IncrementalV2.zip")) {
+            project.parseZipStream(inputStream);
+        }
+        CallGraph graph = project.getCallGraph();
+        // Car.drive -> Engine.start -> Spark.fire -> Coil.charge and Radio.play -> Speaker.sound
+        Assertions.assertEquals(4, graph.getCallSiteCount());
+        int drive = graph.getId("Car", "drive");
+        int charge = graph.getId("Coil", "charge");
+        Assertions.assertEquals(Arrays.asList("Engine#start", "Spark#fire", "Coil#charge"), keys(graph, graph.reachable(drive, 10, false, null)));
+        Assertions.assertEquals(Arrays.asList("Engine#start", "Spark#fire"), keys(graph, graph.reachable(drive, 2, false, null)));
+        int[] depths = new int[graph.size()];
+        Assertions.assertEquals(Arrays.asList("Spark#fire", "Engine#start", "Car#drive"), keys(graph, graph.reachable(charge, 10, true, depths)));
+        Assertions.assertEquals(3, depths[2]);
+        Assertions.assertEquals(1, graph.getFanIn(charge));
+        Assertions.assertEquals(0, graph.getFanOut(charge));
+        Assertions.assertEquals(1, graph.getFanOut(drive));
+
+        // a cycle reaches the method itself, the lazy project builds the same graph on request
+        ProjectCollector lazy = new ProjectCollector();
+        lazy.setLazyMethodBodies(true);
+        lazy.parseFiles(manager.unzipFile("/MutualRecursion.zip", true));
+        CallGraph cycle = lazy.getCallGraph();
+        Assertions.assertEquals(Arrays.asList("Pong#pong", "Ping#ping"), keys(cycle, cycle.reachable(cycle.getId("Ping", "ping"), 10, false, null)));
+        Assertions.assertEquals(1, lazy.getSeqDiagramInfo("Ping", "ping").length());
+    }
+
+    @Test
+    public void testLocalVariablesAreLookedUpInTheirScope() throws IOException, ProjectParseException {
+        ProjectCollector project = new ProjectCollector();
+        try (InputStream inputStream = new FileInputStream("src/test/resources/LocalScopes.zip")) {
+            project.parseZipStream(inputStream);
+        }
+        // the device locals of both branches hide the device field, which is used after them
+        JSONArray route = project.getSeqDiagramInfo("Dispatcher", "route");
+        JSONArray branches = route.getJSONObject(0).getJSONArray("call");
+        Assertions.assertEquals("Phone", branches.getJSONArray(0).getJSONObject(1).getString("calleeClass"));
+        Assertions.assertEquals("Pager", branches.getJSONArray(1).getJSONObject(1).getString("calleeClass"));
+        Assertions.assertEquals("Radio", route.getJSONObject(1).getString("calleeClass"));
+
+        // phone is a Phone inside the loop and a Pager declared after it
+        JSONArray retry = project.getSeqDiagramInfo("Dispatcher", "retry");
+        Assertions.assertEquals("Phone", retry.getJSONObject(0).getJSONArray("call").getJSONObject(0).getString("calleeClass"));
+        Assertions.assertEquals("beep", retry.getJSONObject(1).getString("callerName"));
+    }
+
+    @Test
+    public void testSymbolResolutionFindsNestedLocalsAndInheritedFields() throws IOException, ProjectParseException {
+        // heater is a field of the superclass declared in another package, only the solver knows its type
+        ProjectCollector named = new ProjectCollector();
+        named.parseFiles(manager.unzipFile("/SymbolResolution.zip", true));
+        Assertions.assertEquals(0, named.getSeqDiagramInfo("Garage", "heat").length());
+
+        // the facade of a solver used elsewhere outlives the compile
+        TypeSolver otherSolver = new ReflectionTypeSolver();
+        JavaParserFacade otherFacade = JavaParserFacade.get(otherSolver);
+        ProjectCollector resolved = new ProjectCollector();
+        resolved.setSymbolResolution(true);
+        try (InputStream inputStream = new FileInputStream("src/test/resources/SymbolResolution.zip")) {
+            resolved.parseZipStream(inputStream);
+        }
+        Assertions.assertSame(otherFacade, JavaParserFacade.get(otherSolver));
+        JSONObject start = resolved.getSeqDiagramInfo("Garage", "open").getJSONObject(0).getJSONArray("call").getJSONArray(0).getJSONObject(0);
+        Assertions.assertEquals("Engine", start.getString("calleeClass"));
+        Assertions.assertEquals("start", start.getString("callerName"));
+        JSONObject warm = resolved.getSeqDiagramInfo("Garage", "heat").getJSONObject(0);
+        Assertions.assertEquals("Heater", warm.getString("calleeClass"));
+
+        // methods analysed on request resolve the same way
+        ProjectCollector lazy = new ProjectCollector();
+        lazy.setSymbolResolution(true);
+        lazy.setLazyMethodBodies(true);
+        lazy.parseFiles(manager.unzipFile("/SymbolResolution.zip", true));
+        for (String method: new String[] {"open", "heat", "light"}) {
+            Assertions.assertTrue(resolved.getSeqDiagramInfo("Garage", method).similar(lazy.getSeqDiagramInfo("Garage", method)), method);
+        }
+
+        // the locals of nested blocks and lambdas are member dependencies too
+        ProjectCollector members = new ProjectCollector();
+        members.setMemberDependencies(true);
+        members.parseFiles(manager.unzipFile("/SymbolResolution.zip", true));
+        for (GraphElement ge: members.getClasses()) {
+            if (ge.getClassName().equals("Garage")) {
+                Assertions.assertEquals(new TreeSet<String>(Arrays.asList("Bulb", "Engine", "Lamp")), new TreeSet<String>(ge.getDep()));
+            }
+        }
+    }
+
+    @Test
+    public void testProjectSnapshotIsReadAfterRestart() throws Exception {
+        File folder = Files.createTempDirectory("snapshots").toFile();
+        try {
+            ProjectRegistry registry = new ProjectRegistry(1, new ProjectSnapshotStore(folder.getPath(), 4));
+            ProjectCollector project = new ProjectCollector();
+            project.parseFiles(manager.unzipFile("/SampleProject.zip", true));
+            ClassDiagramPayload payload = ClassDiagramPayload.create(project.getClasses(), true);
+            registry.register("sample", project, payload);
+
+            // a new registry over the same folder stands for a restarted backend
+            ProjectRegistry restarted = new ProjectRegistry(1, new ProjectSnapshotStore(folder.getPath(), 4));
+            Assertions.assertEquals("sample", restarted.getLatestProjectId());
+            ProjectCollector restored = restarted.get("sample");
+            Assertions.assertEquals(classSummary(project), classSummary(restored));
+            Assertions.assertEquals(payload.getETag(), restarted.getClassDiagram("sample").getETag());
+            Assertions.assertNotNull(restarted.getClassDiagram("sample").getGzip());
+            for (GraphElement ge: project.getClasses()) {
+                for (Method m: ge.getListOfMethods()) {
+                    JSONArray expected = project.getSeqDiagramInfo(ge.getClassName(), m.getName(ge.getStrings()));
+                    Assertions.assertTrue(expected.similar(restored.getSeqDiagramInfo(ge.getClassName(), m.getName(ge.getStrings()))));
+                }
+            }
+            Assertions.assertThrows(ProjectNotFoundException.class, () -> restarted.get("../sample"));
+        } finally {
+            FileUtils.deleteDirectory(folder);
+        }
+    }
+
+    @Test
+    public void testUploadJobReportsProgress() throws Exception {
+        ProjectRegistry registry = new ProjectRegistry(1);
+        DiagramProviderService service = new DiagramProviderService(registry);
+        MockMultipartFile file;
+        try (InputStream inputStream = new FileInputStream("src/test/resources/SampleProject.zip")) {
+            file = new MockMultipartFile("file", "SampleProject.zip", "application/zip", inputStream);
+        }
+        UploadJob job = service.submitUpload(file, null);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(UploadJob.Status.SUCCEEDED, job.getStatus(), job.getError());
+        Assertions.assertSame(job, service.getUploadJob(job.getJobId()));
+        Assertions.assertEquals(job.getFilesTotal(), job.getFilesParsed());
+        Assertions.assertTrue(job.getFilesTotal() > 0);
+        Assertions.assertEquals(UploadJob.DONE, job.getPhase());
+        Assertions.assertFalse(registry.get(job.getProjectId()).getClasses().isEmpty());
+        Assertions.assertThrows(UploadJobNotFoundException.class, () -> service.getUploadJob("unknown"));
+    }
+
+    private Set<String> getDependencies(String className) {
+        for (GraphElement ge: collector.getClasses()) {
+            if (ge.getClassName().equals(className)) {
+                return new TreeSet<String>(ge.getDep());
+            }
+        }
+        return null;
+    }
+
+    private Set<String> methodNames(String className) {
+        Set<String> names = new TreeSet<String>();
+        for (GraphElement ge: collector.getClasses()) {
+            if (ge.getClassName().equals(className)) {
+                for (Method m: ge.getListOfMethods()) {
+                    names.add(m.getName(ge.getStrings()));
+                }
+            }
+        }
+        return names;
+    }
+
+    private List<String> keys(CallGraph graph, int[] ids) {
+        List<String> keys = new ArrayList<String>();
+        for (int id: ids) {
+            keys.add(graph.getKey(id));
+        }
+        return keys;
+    }
+
+    // the files parseFiles reads, the same way it walks the folders
+    private int countJavaFiles(File file) {
+        if (!file.isDirectory()) {
+            return file.getName().endsWith(".java") ? 1 : 0;
+        }
+        int count = 0;
+        if (!file.getName().contains("MACOSX")) {
+            for (File child: file.listFiles()) {
+                count += countJavaFiles(child);
+            }
+        }
+        return count;
+    }
+
+    private Set<String> classNames(ProjectCollector project) {
+        Set<String> names = new TreeSet<String>();
+        for (GraphElement ge: project.getClasses()) {
+            names.add(ge.getClassName());
+        }
+        return names;
+    }
+
+    private Set<String> classSummary() {
+        return classSummary(collector);
+    }
+
+    private Set<String> classSummary(ProjectCollector project) {
+        Set<String> summary = new TreeSet<String>();
+        for (GraphElement ge: project.getClasses()) {
+            summary.add(ge.getClassName() + ":" + ge.getListOfMethods().size() + ":" + ge.getFields().size() + ":" + new TreeSet<String>(ge.getDep()));
+        }
+        return summary;
+    }
+
     @AfterAll
     public static void cleanup() throws IOException {
         manager.deleteDestinationFolder();
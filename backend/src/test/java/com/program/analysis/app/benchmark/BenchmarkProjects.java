@@ -0,0 +1,95 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.program.analysis.app.ZipFileStorageManager;
+
+/*
+    Input projects of the benchmarks, a project is either the name of a fixture zip (src/test/resources or
+    ../sampleProjects) or "synthetic:<classes>" for a generated project of that many classes.
+ */
+public class BenchmarkProjects {
+    public static final String SYNTHETIC = "synthetic:";
+
+    // prepare the project in the given (empty) folder and return its top level files
+    public static File[] prepare(String project, File folder) throws IOException {
+        File unzipFolder = new File(folder, "unzip");
+        if (project.startsWith(SYNTHETIC)) {
+            generate(Integer.parseInt(project.substring(SYNTHETIC.length())), unzipFolder);
+            return unzipFolder.listFiles();
+        }
+        File zip = findFixture(project);
+        ZipFileStorageManager manager = new ZipFileStorageManager();
+        manager.setPaths(zip.getParent(), unzipFolder.getPath(), false, true);
+        return manager.unzipFile(zip.getName(), true);
+    }
+
+    public static File findFixture(String zipName) throws IOException {
+        for (String folder: new String[] {"src/test/resources", "../sampleProjects"}) {
+            File zip = new File(folder, zipName);
+            if (zip.exists()) {
+                return zip;
+            }
+        }
+        throw new IOException("No benchmark fixture named " + zipName + ", run the benchmarks from the backend folder");
+    }
+
+    /*
+        Every generated class has fields, generic and array typed fields pointing at other classes, and methods
+        with plain calls, calls in loops and branches, and a call chain through the next class, 100 classes
+        per package.
+     */
+    public static void generate(int classes, File folder) throws IOException {
+        for (int i = 0; i < classes; i++) {
+            File packageFolder = new File(folder, "gen/p" + (i / 100));
+            packageFolder.mkdirs();
+            String next = className((i + 1) % classes);
+            String other = className((i * 31 + 7) % classes);
+            try (PrintWriter out = new PrintWriter(new File(packageFolder, className(i) + ".java"), StandardCharsets.UTF_8.name())) {
+                out.println("package gen.p" + (i / 100) + ";");
+                out.println();
+                out.println("import java.util.List;");
+                out.println();
+                out.println("public class " + className(i) + " {");
+                out.println("    private " + next + " next;");
+                out.println("    private List<" + other + "> others;");
+                out.println("    private " + other + "[] otherArray;");
+                out.println("    private int count;");
+                out.println();
+                out.println("    public int getCount() {");
+                out.println("        return count;");
+                out.println("    }");
+                out.println();
+                out.println("    public void step(int depth) {");
+                out.println("        if (depth > 0) {");
+                out.println("            next.step(depth - 1);");
+                out.println("        } else {");
+                out.println("            count = getCount() + 1;");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("    public void visitOthers(" + other + " first) {");
+                out.println("        first.getCount();");
+                out.println("        for (" + other + " o: others) {");
+                out.println("            o.step(count);");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("    public " + next + " getNext() {");
+                out.println("        while (count < 10) {");
+                out.println("            step(count);");
+                out.println("        }");
+                out.println("        return next;");
+                out.println("    }");
+                out.println("}");
+            }
+        }
+    }
+
+    private static String className(int i) {
+        return "Gen" + i;
+    }
+}
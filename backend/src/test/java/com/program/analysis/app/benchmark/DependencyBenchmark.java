@@ -0,0 +1,66 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import com.program.analysis.app.ClassDiagramPayload;
+import com.program.analysis.app.representation.ProjectCollector;
+import com.program.analysis.app.representation.ProjectParseException;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    A parse up to the class diagram, the dependencies are what it shows. Method bodies are lazy so no
+    sequence diagram is compiled, compare with ParseBenchmark -p lazy=true for the share of the dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyBenchmark {
+    @Param({"SampleProject.zip", "tinyVarsPointers.zip", "Server.zip", "synthetic:1000", "synthetic:10000", "synthetic:50000"})
+    public String project;
+
+    @Param({"false", "true"})
+    public boolean memberDependencies;
+
+    private File folder;
+    private File[] files;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("dependency-benchmark").toFile();
+        files = BenchmarkProjects.prepare(project, folder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Benchmark
+    public ClassDiagramPayload classDiagram() throws IOException, ProjectParseException {
+        ProjectCollector collector = new ProjectCollector();
+        collector.setLazyMethodBodies(true);
+        collector.setMemberDependencies(memberDependencies);
+        collector.parseFiles(files);
+        return ClassDiagramPayload.create(collector.getClasses(), true);
+    }
+}
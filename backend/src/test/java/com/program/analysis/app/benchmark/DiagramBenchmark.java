@@ -0,0 +1,99 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.program.analysis.app.ClassDiagramPayload;
+import com.program.analysis.app.DiagramProviderService;
+import com.program.analysis.app.ProjectNotFoundException;
+import com.program.analysis.app.ProjectRegistry;
+import com.program.analysis.app.representation.GraphElement;
+import com.program.analysis.app.representation.Method;
+import com.program.analysis.app.representation.ProjectCollector;
+import com.program.analysis.app.representation.ProjectParseException;
+import com.program.analysis.app.representation.SequenceOptions;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    Diagram requests on an analysed project. seqDiagramInfo asks for a different method on every call,
+    going round all methods of the project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiagramBenchmark {
+    @Param({"SampleProject.zip", "tinyVarsPointers.zip", "Server.zip", "synthetic:1000", "synthetic:10000", "synthetic:50000"})
+    public String project;
+
+    private DiagramProviderService service;
+    private ProjectCollector collector;
+    private String projectId;
+    private List<String[]> methods;
+    private int nextMethod;
+
+    @Setup
+    public void setup() throws IOException, ProjectParseException {
+        File folder = Files.createTempDirectory("diagram-benchmark").toFile();
+        collector = new ProjectCollector();
+        try {
+            collector.parseFiles(BenchmarkProjects.prepare(project, folder));
+        } finally {
+            FileUtils.deleteDirectory(folder);
+        }
+        ProjectRegistry registry = new ProjectRegistry(1);
+        projectId = registry.newProjectId();
+        registry.register(projectId, collector);
+        service = new DiagramProviderService(registry);
+
+        methods = new ArrayList<String[]>();
+        for (GraphElement ge: collector.getClasses()) {
+            for (Method m: ge.getListOfMethods()) {
+                methods.add(new String[] {ge.getClassName(), m.getName(ge.getStrings())});
+            }
+        }
+    }
+
+    @Benchmark
+    public JSONArray classDiagramInfo() throws ProjectNotFoundException {
+        return service.getClassDiagramInfo(projectId);
+    }
+
+    // the JSON tree and its String, like the class info endpoint used to produce
+    @Benchmark
+    public String classDiagramInfoString() throws ProjectNotFoundException {
+        return service.getClassDiagramInfo(projectId).toString();
+    }
+
+    // what every upload pays once, requests are served from the cached bytes
+    @Benchmark
+    public ClassDiagramPayload classDiagramPayload() throws ProjectNotFoundException {
+        return ClassDiagramPayload.create(collector.getClasses(), true);
+    }
+
+    @Benchmark
+    public JSONArray seqDiagramInfo() throws ProjectNotFoundException {
+        String[] method = methods.get(nextMethod);
+        nextMethod = (nextMethod + 1) % methods.size();
+        return service.getSeqDiagramInfo(projectId, method[0], method[1], SequenceOptions.defaults());
+    }
+}
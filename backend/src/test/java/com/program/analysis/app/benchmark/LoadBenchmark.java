@@ -0,0 +1,137 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.program.analysis.app.ProgramAnalysisApplication;
+import com.program.analysis.app.representation.AnalysisThreads;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+    Load test of the running backend: uploads, class diagram and sequence diagram requests at the same time
+    (one JMH group), over HTTP against the application started on a free port. virtual=true runs it with
+    analysis.threads.virtual and needs Java 21, run it with
+    mvn -Pbenchmark -DskipTests verify -Djmh.args="LoadBenchmark -p virtual=false,true"
+    Tomcat gets maxThreads platform request threads, fewer than the 80 client threads, so in the platform
+    mode requests queue up behind the slow uploads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoadBenchmark {
+    private static final String BOUNDARY = "load-benchmark-" + UUID.randomUUID();
+
+    @Param({"false"})
+    public boolean virtual;
+
+    @Param({"32"})
+    public int maxThreads;
+
+    @Param({"SampleProject.zip"})
+    public String project;
+
+    private File snapshots;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String base;
+    private HttpRequest upload;
+    // uploads push older projects out of memory, the readers follow the most recent one
+    private volatile String projectId;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        if (virtual && !AnalysisThreads.isVirtualAvailable()) {
+            throw new IllegalStateException("virtual=true needs Java 21 or newer");
+        }
+        snapshots = Files.createTempDirectory("load-benchmark").toFile();
+        context = SpringApplication.run(ProgramAnalysisApplication.class, "--server.port=0",
+                "--server.tomcat.max-threads=" + maxThreads, "--analysis.threads.virtual=" + virtual,
+                "--analysis.upload.async=false", "--analysis.snapshot.folder=" + snapshots.getPath(),
+                "--analysis.snapshot.max=100000",
+                "--logging.level.root=WARN");
+        base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        upload = HttpRequest.newBuilder(URI.create(base + "/analysis/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(multipartBody(project))).build();
+        projectId = send(upload);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        AnalysisThreads.setVirtual(false);
+        FileUtils.deleteDirectory(snapshots);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public String upload() throws IOException, InterruptedException {
+        return projectId = send(upload);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public String classInfo() throws IOException, InterruptedException {
+        return send(projectRequest("/class/info"));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public String sequence() throws IOException, InterruptedException {
+        return send(projectRequest("/class/Car/sequence/carFunction3"));
+    }
+
+    private HttpRequest projectRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(base + "/analysis/project/" + projectId + path)).build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static byte[] multipartBody(String zip) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" + zip
+                + "\"\r\nContent-Type: application/zip\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(Files.readAllBytes(BenchmarkProjects.findFixture(zip).toPath()));
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
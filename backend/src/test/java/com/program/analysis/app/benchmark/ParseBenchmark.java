@@ -0,0 +1,70 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import com.program.analysis.app.representation.ProjectCollector;
+import com.program.analysis.app.representation.ProjectParseException;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    Full analysis of an extracted project: parsing, dependencies, symbol index and sequence compilation.
+    lazy=true leaves the sequence compilation out, as uploads with analysis.methods.lazy do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"SampleProject.zip", "SampleProject2.zip", "SampleProject3.zip", "SampleProject4.zip",
+            "tinyVarsEvaluator.zip", "tinyVarsVisitor.zip", "tinyVarsPointers.zip", "Server.zip",
+            "synthetic:1000", "synthetic:10000", "synthetic:50000"})
+    public String project;
+
+    @Param({"1"})
+    public int parallelism;
+
+    @Param({"false"})
+    public boolean lazy;
+
+    private File folder;
+    private File[] files;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("parse-benchmark").toFile();
+        files = BenchmarkProjects.prepare(project, folder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Benchmark
+    public ProjectCollector parseFiles() throws IOException, ProjectParseException {
+        ProjectCollector collector = new ProjectCollector();
+        collector.setParseParallelism(parallelism);
+        collector.setLazyMethodBodies(lazy);
+        collector.parseFiles(files);
+        return collector;
+    }
+}
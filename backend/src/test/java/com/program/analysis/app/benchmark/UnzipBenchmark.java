@@ -0,0 +1,129 @@
+package com.program.analysis.app.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.program.analysis.app.ZipFileStorageManager;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    Compares the byte by byte extraction loop unzipFile used to have with the buffered and the parallel
+    extraction. The zip is repeated "copies" times into one archive so the timings are not dominated by
+    opening the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnzipBenchmark {
+    @Param({"Server.zip"})
+    public String zip;
+
+    @Param({"200"})
+    public int copies;
+
+    private File folder;
+    private File repeated;
+    private File unzip;
+    private ZipFileStorageManager manager;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("unzip-benchmark").toFile();
+        repeated = repeat(BenchmarkProjects.findFixture(zip), copies, new File(folder, "zip"));
+        unzip = new File(folder, "unzip");
+        manager = new ZipFileStorageManager();
+        manager.setPaths(repeated.getParent(), unzip.getPath(), false, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Benchmark
+    public void byteLoop() throws IOException {
+        byteLoopUnzip(repeated, unzip);
+    }
+
+    @Benchmark
+    public File[] buffered() throws IOException {
+        manager.setExtractParallelism(1);
+        return manager.unzipFile(repeated.getName(), true);
+    }
+
+    @Benchmark
+    public File[] parallel() throws IOException {
+        manager.setExtractParallelism(4);
+        return manager.unzipFile(repeated.getName(), true);
+    }
+
+    private static File repeat(File source, int copies, File zipFolder) throws IOException {
+        zipFolder.mkdirs();
+        File target = new File(zipFolder, "benchmark.zip");
+        try (ZipFile file = new ZipFile(source); ZipOutputStream out = new ZipOutputStream(new FileOutputStream(target))) {
+            for (int copy = 0; copy < copies; copy++) {
+                Enumeration<? extends ZipEntry> zipEntries = file.entries();
+                while (zipEntries.hasMoreElements()) {
+                    ZipEntry zipEntry = zipEntries.nextElement();
+                    out.putNextEntry(new ZipEntry("copy" + copy + "/" + zipEntry.getName()));
+                    if (!zipEntry.isDirectory()) {
+                        try (InputStream inputStream = file.getInputStream(zipEntry)) {
+                            IOUtils.copy(inputStream, out);
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+        }
+        return target;
+    }
+
+    // the extraction loop unzipFile used before, kept here as the baseline
+    private static void byteLoopUnzip(File zip, File unzip) throws IOException {
+        FileUtils.cleanDirectory(unzip);
+        try (ZipFile file = new ZipFile(zip)) {
+            Enumeration<? extends ZipEntry> zipEntries = file.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                File newFile = new File(unzip, zipEntry.getName());
+                newFile.getParentFile().mkdirs();
+                if (!zipEntry.isDirectory()) {
+                    try (FileOutputStream outputStream = new FileOutputStream(newFile)) {
+                        BufferedInputStream inputStream = new BufferedInputStream(file.getInputStream(zipEntry));
+                        while (inputStream.available() > 0) {
+                            outputStream.write(inputStream.read());
+                        }
+                        inputStream.close();
+                    }
+                }
+            }
+        }
+    }
+}
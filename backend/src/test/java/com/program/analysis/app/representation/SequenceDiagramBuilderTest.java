@@ -0,0 +1,43 @@
+package com.program.analysis.app.representation;
+
+import java.time.Duration;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SequenceDiagramBuilderTest {
+
+    @Test
+    public void testMoveFullSizeDropsAnIncompleteHead() {
+        // a sep/cond array whose head is not a complete call used to keep the draining loops spinning
+        JSONObject incomplete = new JSONObject();
+        incomplete.put("type", "none");
+        incomplete.put("callerClass", "Car");
+        JSONObject call = new JSONObject();
+        call.put("type", "none");
+        call.put("callerClass", "Car");
+        call.put("calleeClass", "Engine");
+        call.put("callerName", "start");
+        call.put("returnType", "void");
+        call.put("call", new JSONArray());
+        call.put("param", new JSONArray());
+        JSONObject loop = new JSONObject();
+        loop.put("type", "loop");
+        loop.put("call", new JSONArray());
+
+        JSONArray from = new JSONArray();
+        from.put(incomplete);
+        from.put(new JSONArray());
+        from.put(call);
+        from.put(loop);
+        JSONArray to = new JSONArray();
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> SequenceDiagramBuilder.moveFullSize(from, to));
+
+        Assertions.assertEquals(0, from.length());
+        Assertions.assertEquals(2, to.length());
+        Assertions.assertSame(call, to.get(0));
+        Assertions.assertSame(loop, to.get(1));
+    }
+}
@@ -10,7 +10,7 @@ import StepContent from '@material-ui/core/StepContent';
 
 
 import axios from 'axios';
-import {API_UPLOAD, API_CLASS} from "./const";
+import {API_UPLOAD, API_PROJECT, API_JOBS} from "./const";
 import ClassDiagramArea from "./ClassDiagramArea";
 
 const useStyles = makeStyles((theme) => ({
@@ -38,6 +38,7 @@ function App() {
     const classes = useStyles();
 
     const [data, setData] = React.useState({});
+    const [projectId, setProjectId] = React.useState(null);
     const [activeStep, setActiveStep] = React.useState(0);
 
     return (
@@ -48,7 +49,7 @@ function App() {
                         <StepLabel>Upload</StepLabel>
                         <StepContent>
                             <div className={classes.actionsContainer}>
-                                <UploadStep setData={setData} setActiveStep={setActiveStep} />
+                                <UploadStep setData={setData} setProjectId={setProjectId} setActiveStep={setActiveStep} />
                             </div>
                         </StepContent>
                     </Step>
@@ -60,7 +61,7 @@ function App() {
                                 {false && <Button variant="outlined" color="secondary" component="span" onClick={() => {setActiveStep(0);}}>
                                     Back
                                 </Button>}
-                                <ClassDiagramArea rawJson={data}/>
+                                <ClassDiagramArea rawJson={data} projectId={projectId}/>
                             </div>
                         </StepContent>
                     </Step>
@@ -70,7 +71,7 @@ function App() {
     );
 }
 
-function UploadStep({setData, setActiveStep}) {
+function UploadStep({setData, setProjectId, setActiveStep}) {
     const classes = useStyles();
 
     const [isProcessing, setIsProcessing] = React.useState(false);
@@ -84,9 +85,10 @@ function UploadStep({setData, setActiveStep}) {
             headers: {
                 'Content-Type': 'multipart/form-data'
             }
-        }).then(response => response.data).then(data => {
-            if (data !== "Upload successful") return Promise.reject();
-            axios.get(API_CLASS).then(response => response.data).then(data => {
+        }).then(response => response.status === 202 ? waitForJob(response.data) : response.data).then(projectId => {
+            if (!projectId) return Promise.reject();
+            axios.get(API_PROJECT + projectId + "/class/info").then(response => response.data).then(data => {
+                setProjectId(projectId);
                 setData(data);
                 setActiveStep(1);
             }).catch(err => {
@@ -119,4 +121,22 @@ function UploadStep({setData, setActiveStep}) {
         </div>);
 }
 
+// polls the upload job until the analysis is done, resolves to the project ID
+function waitForJob(jobId) {
+    return new Promise((resolve, reject) => {
+        const poll = () => {
+            axios.get(API_JOBS + jobId).then(response => response.data).then(job => {
+                if (job.status === "SUCCEEDED") {
+                    resolve(job.projectId);
+                } else if (job.status === "FAILED") {
+                    reject(job.error);
+                } else {
+                    setTimeout(poll, 500);
+                }
+            }).catch(reject);
+        };
+        poll();
+    });
+}
+
 export default App;
@@ -24,7 +24,7 @@ const getClassNameById = className => className.split("-")[1];
 function ClassDiagramArea(props) {
     const classes = useStyles();
 
-    const {rawJson} = props;
+    const {rawJson, projectId} = props;
 
     const [mData, setMData] = React.useState("");
     const [ready, setReady] = React.useState(0);
@@ -59,7 +59,7 @@ function ClassDiagramArea(props) {
                     <Mermaid definition={mData} _key={"area"} setReady={setReady}/>
                 </TransformComponent>
             </TransformWrapper>
-            <SequenceDialog open={dialogOpen} setOpen={setDialogOpen} className={className} methodName={methodName}/>
+            <SequenceDialog open={dialogOpen} setOpen={setDialogOpen} projectId={projectId} className={className} methodName={methodName}/>
         </div>
     );
 }
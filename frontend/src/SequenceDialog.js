@@ -6,12 +6,12 @@ import DialogContent from '@material-ui/core/DialogContent';
 import DialogContentText from '@material-ui/core/DialogContentText';
 import DialogTitle from '@material-ui/core/DialogTitle';
 import axios from "axios";
-import {API_METHOD} from "./const";
+import {API_PROJECT} from "./const";
 import Mermaid from "./Mermaid";
 import {renderSequenceInfo} from "./sequenceInfoRender";
 import CircularProgress from "@material-ui/core/CircularProgress";
 
-export default function SequenceDialog({open, setOpen, className, methodName}) {
+export default function SequenceDialog({open, setOpen, projectId, className, methodName}) {
 
     const [mData, setMData] = React.useState("");
     const [ready, setReady] = React.useState(0);
@@ -21,16 +21,16 @@ export default function SequenceDialog({open, setOpen, className, methodName}) {
     };
 
     React.useEffect(() => {
-        if (className === null || methodName === null) return;
+        if (projectId === null || className === null || methodName === null) return;
         setReady(0);
-        axios.get(API_METHOD + className + "/sequence/" + methodName).then(response => response.data).then(data => {
+        axios.get(API_PROJECT + projectId + "/class/" + className + "/sequence/" + methodName).then(response => response.data).then(data => {
             setMData(renderSequenceInfo(data));
             setReady(1);
         }).catch(err => {
             console.log("Fail to retrieve");
         });
 
-    }, [className, methodName]);
+    }, [projectId, className, methodName]);
 
     return (
         <Dialog
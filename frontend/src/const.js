@@ -4,4 +4,8 @@ export const API_UPLOAD = API_BASE + "/analysis/upload";
 
 export const API_CLASS = API_BASE + "/analysis/class/info";
 
-export const API_METHOD = API_BASE + "/analysis/class/";
\ No newline at end of file
+export const API_METHOD = API_BASE + "/analysis/class/";
+
+export const API_PROJECT = API_BASE + "/analysis/project/";
+
+export const API_JOBS = API_BASE + "/analysis/jobs/";